@@ -60,3 +60,20 @@ Create the name of the service account to use
 {{- default "default" .Values.serviceAccount.name }}
 {{- end }}
 {{- end }}
+
+{{/*
+Flyway connection settings, shared by the application pods and the migration Job
+*/}}
+{{- define "helmchart.flywayEnv" -}}
+{{- if .Values.postgresql.enabled }}
+- name: SPRING_FLYWAY_URL
+  value: "jdbc:postgresql://{{ include "helmchart.fullname" . }}-postgresql:5432/{{ .Values.postgresql.auth.database }}"
+- name: SPRING_FLYWAY_USER
+  value: {{ .Values.postgresql.auth.username | quote }}
+- name: SPRING_FLYWAY_PASSWORD
+  valueFrom:
+    secretKeyRef:
+      name: {{ include "helmchart.fullname" . }}-db-secret
+      key: password
+{{- end }}
+{{- end }}
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+#
+# Compares time-to-ready of the standard image (Dockerfile) with the AOT + CDS image (Dockerfile.fast-startup).
+# Each container is started RUNS times under the pod's CPU limit, timing from `docker run` until
+# /actuator/health/readiness answers 200.
+#
+# Needs Postgres and Kafka reachable from the host network, e.g. `docker compose up -d db` plus a broker.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# Env:   CPUS (default 1, the chart's limit), PORT (default 8080), SKIP_BUILD=1 to reuse existing images,
+#        and any SPRING_* / KAFKA_* variables to pass through to the containers.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+CPUS=${CPUS:-1}
+PORT=${PORT:-8080}
+IMAGES=(ch-users-service:baseline ch-users-service:fast-startup)
+DOCKERFILES=(Dockerfile Dockerfile.fast-startup)
+
+cd "$(dirname "$0")/.."
+
+if [[ -z "${SKIP_BUILD:-}" ]]; then
+    for i in "${!IMAGES[@]}"; do
+        docker build -q -f "${DOCKERFILES[$i]}" -t "${IMAGES[$i]}" .
+    done
+fi
+
+env_args=()
+while IFS= read -r name; do
+    env_args+=(-e "$name")
+done < <(compgen -e | grep -E '^(SPRING_|KAFKA_)' || true)
+
+time_to_ready() {
+    local image=$1 start container elapsed
+    start=$(date +%s%N)
+    container=$(docker run -d --rm --network host --cpus "$CPUS" "${env_args[@]}" "$image")
+    until curl -sf "http://localhost:${PORT}/actuator/health/readiness" > /dev/null; do
+        if ! docker inspect "$container" > /dev/null 2>&1; then
+            echo "container for $image exited before becoming ready" >&2
+            return 1
+        fi
+        sleep 0.1
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    docker stop -t 5 "$container" > /dev/null
+    echo "$elapsed"
+}
+
+printf '%-32s %10s %10s %10s\n' image min median max
+for image in "${IMAGES[@]}"; do
+    samples=()
+    for _ in $(seq "$RUNS"); do
+        samples+=("$(time_to_ready "$image")")
+    done
+    sorted=($(printf '%s\n' "${samples[@]}" | sort -n))
+    printf '%-32s %8sms %8sms %8sms\n' "$image" "${sorted[0]}" "${sorted[$(( RUNS / 2 ))]}" "${sorted[-1]}"
+done
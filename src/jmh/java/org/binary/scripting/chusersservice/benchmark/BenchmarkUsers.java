@@ -0,0 +1,28 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.time.Instant;
+import java.util.UUID;
+
+final class BenchmarkUsers {
+
+    private BenchmarkUsers() {
+    }
+
+    static User user(int i) {
+        Instant now = Instant.parse("2025-01-15T10:30:00.123456Z");
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("user" + i)
+                .email("user" + i + "@example.com")
+                .firstName("First" + i)
+                .lastName("Last" + i)
+                .mobileNumber("+1-555-" + String.format("%07d", i))
+                .createdBy("system")
+                .modifiedBy("system")
+                .createdAt(now)
+                .modifiedAt(now)
+                .build();
+    }
+}
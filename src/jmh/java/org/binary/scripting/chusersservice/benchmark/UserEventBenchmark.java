@@ -0,0 +1,118 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.event.UserEvent;
+import org.binary.scripting.chusersservice.event.UserEventDeserializer;
+import org.binary.scripting.chusersservice.event.UserEventSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a {@link UserEvent} from a written user, serializing it into a Kafka record value and reading it
+ * back, in each format {@link UserEventSerializer} supports. {@code serialize} also reports the record size
+ * as its {@code bytesPerEvent} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserEventBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkUsers.user(1);
+    }
+
+    @Benchmark
+    public UserEvent buildEvent() {
+        return UserEvent.of(UserEvent.EventType.USER_UPDATED, user);
+    }
+
+    @Benchmark
+    public byte[] serialize(SerializerState state, EncodedSize size) {
+        return state.serializer.serialize(TOPIC, new RecordHeaders(), state.event);
+    }
+
+    @Benchmark
+    public UserEvent deserialize(SerializerState state) {
+        // A copy per record, as the JSON deserializer strips the type headers it reads
+        return state.deserializer.deserialize(TOPIC, new RecordHeaders(state.headers.toArray()), state.encoded);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SerializerState {
+
+        private static final String TYPE_MAPPING = "userEvent:org.binary.scripting.chusersservice.event.UserEvent";
+
+        @Param({"json", "binary"})
+        public String format;
+
+        private UserEvent event;
+        private UserEventSerializer serializer;
+        private UserEventDeserializer deserializer;
+        private RecordHeaders headers;
+        private byte[] encoded;
+
+        @Setup
+        public void setUp() {
+            event = UserEvent.of(UserEvent.EventType.USER_UPDATED, BenchmarkUsers.user(1));
+            serializer = new UserEventSerializer();
+            serializer.configure(Map.of(
+                    UserEventSerializer.FORMAT_CONFIG, format,
+                    "spring.json.type.mapping", TYPE_MAPPING), false);
+            deserializer = new UserEventDeserializer();
+            deserializer.configure(Map.of(
+                    "spring.json.type.mapping", TYPE_MAPPING,
+                    "spring.json.trusted.packages", "org.binary.scripting.chusersservice.event"), false);
+            // The serializer sets the headers the deserializer picks the format from
+            headers = new RecordHeaders();
+            encoded = serializer.serialize(TOPIC, headers, event);
+        }
+
+        @TearDown
+        public void tearDown() {
+            serializer.close();
+            deserializer.close();
+        }
+    }
+
+    /**
+     * Reported rather than timed: the same event always encodes to the same size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        private int bytes;
+
+        @Setup
+        public void setUp(SerializerState state) {
+            bytes = state.encoded.length;
+        }
+
+        public double bytesPerEvent() {
+            return bytes;
+        }
+    }
+}
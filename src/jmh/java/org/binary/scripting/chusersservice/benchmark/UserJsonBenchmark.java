@@ -0,0 +1,49 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import org.binary.scripting.chusersservice.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encode/decode of {@link User}, the per-row cost of every JSON response and request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonBenchmark {
+
+    private JsonMapper jsonMapper;
+    private User user;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        user = BenchmarkUsers.user(1);
+        json = jsonMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return jsonMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User decode() {
+        return jsonMapper.readValue(json, User.class);
+    }
+}
@@ -0,0 +1,87 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import org.binary.scripting.chusersservice.controller.UserJsonEncoder;
+import org.binary.scripting.chusersservice.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.JacksonJsonEncoder;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A page of users encoded into pooled Netty buffers by the default Jackson encoder and by
+ * {@link UserJsonEncoder}, as a {@code GET /v1/users} or {@code /v1/users/stream} response is. Throughput is
+ * pages per millisecond; run with {@code -Djmh.args="UserJsonEncoder -prof gc"} for bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonEncoderBenchmark {
+
+    private static final ResolvableType USER = ResolvableType.forClass(User.class);
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    @Param({"application/json", "application/x-ndjson"})
+    public String mediaType;
+
+    private NettyDataBufferFactory bufferFactory;
+    private JacksonJsonEncoder jackson;
+    private UserJsonEncoder userJson;
+    private List<User> page;
+    private MediaType contentType;
+
+    @Setup
+    public void setUp() {
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        jackson = new JacksonJsonEncoder();
+        userJson = new UserJsonEncoder(64, Duration.ofMillis(1));
+        page = IntStream.range(0, pageSize).mapToObj(BenchmarkUsers::user).toList();
+        contentType = MediaType.parseMediaType(mediaType);
+    }
+
+    @Benchmark
+    public long jackson() {
+        return encode(jackson);
+    }
+
+    @Benchmark
+    public long userJsonEncoder() {
+        return encode(userJson);
+    }
+
+    private long encode(Encoder<Object> encoder) {
+        return encoder.encode(Flux.fromIterable(page), bufferFactory, USER, contentType, Map.of())
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,141 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+import org.binary.scripting.chusersservice.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring Data's row-to-{@link User} mapping as used by the custom repository queries, fed from an
+ * in-memory row so only the converter is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRowMappingBenchmark {
+
+    private R2dbcConverter converter;
+    private Row row;
+
+    @Setup
+    public void setUp() {
+        R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(PostgresDialect.INSTANCE);
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingR2dbcConverter(mappingContext, conversions);
+
+        OffsetDateTime now = OffsetDateTime.of(2025, 1, 15, 10, 30, 0, 123_456_000, ZoneOffset.UTC);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", UUID.randomUUID());
+        columns.put("username", "user1");
+        columns.put("email", "user1@example.com");
+        columns.put("first_name", "First1");
+        columns.put("last_name", "Last1");
+        columns.put("mobile_number", "+1-555-0000001");
+        columns.put("created_by", "system");
+        columns.put("modified_by", "system");
+        columns.put("created_at", now);
+        columns.put("modified_at", now);
+        row = new MapRow(List.copyOf(columns.keySet()), columns);
+    }
+
+    @Benchmark
+    public User read() {
+        return converter.read(User.class, row, row.getMetadata());
+    }
+
+    /**
+     * Holds driver-typed values; like the Postgres driver it hands out timestamptz as either
+     * {@link OffsetDateTime} or {@link Instant}.
+     */
+    private record MapRow(List<String> names, Map<String, Object> columns) implements Row, RowMetadata {
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            return get(names.get(index), type);
+        }
+
+        @Override
+        public <T> T get(String name, Class<T> type) {
+            Object value = columns.get(name);
+            if (type == Instant.class && value instanceof OffsetDateTime timestamp) {
+                return type.cast(timestamp.toInstant());
+            }
+            return type.cast(value);
+        }
+
+        @Override
+        public RowMetadata getMetadata() {
+            return this;
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return getColumnMetadata(names.get(index));
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            Object value = columns.get(name);
+            return new ColumnMetadata() {
+                @Override
+                public Type getType() {
+                    return new Type.InferredType() {
+                        @Override
+                        public Class<?> getJavaType() {
+                            return value.getClass();
+                        }
+
+                        @Override
+                        public String getName() {
+                            return value.getClass().getSimpleName();
+                        }
+                    };
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+            };
+        }
+
+        @Override
+        public List<? extends ColumnMetadata> getColumnMetadatas() {
+            return names.stream().map(this::getColumnMetadata).toList();
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return columns.containsKey(name);
+        }
+    }
+}
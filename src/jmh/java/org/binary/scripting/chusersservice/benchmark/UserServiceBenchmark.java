@@ -0,0 +1,103 @@
+package org.binary.scripting.chusersservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.dto.UserPage;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.event.UserEventRecorder;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.binary.scripting.chusersservice.service.UserAvailabilityFilter;
+import org.binary.scripting.chusersservice.service.UserCache;
+import org.binary.scripting.chusersservice.service.UserLookupBatcher;
+import org.binary.scripting.chusersservice.service.UserLookupCoalescer;
+import org.binary.scripting.chusersservice.service.UserSearchIndex;
+import org.binary.scripting.chusersservice.service.UserServiceImpl;
+import org.binary.scripting.chusersservice.service.UserServiceMetrics;
+import org.binary.scripting.chusersservice.service.UserStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The reactive operator chains in {@link UserServiceImpl} over a repository that answers synchronously
+ * from memory, so what is measured is the service's own assembly and signalling overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private UserServiceImpl service;
+    private UserLookupCoalescer coalescer;
+    private UserLookupBatcher batcher;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkUsers.user(1);
+        List<User> page = IntStream.range(0, PAGE_SIZE + 1).mapToObj(BenchmarkUsers::user).toList();
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Mono.just(user);
+                    case "findFirstKeysetPage", "findKeysetPageAfter" -> Flux.fromIterable(page);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserCache cache = new UserCache(meterRegistry, 10_000, Duration.ofMinutes(5));
+        coalescer = new UserLookupCoalescer(meterRegistry);
+        // A max size of 1 looks up directly, leaving the batching window out of the measurement
+        batcher = new UserLookupBatcher(repository, meterRegistry, Duration.ofMillis(2), 1);
+        service = new UserServiceImpl(repository, new UserEventRecorder(events -> Mono.empty()), cache, coalescer, batcher,
+                new UserSearchIndex(repository, meterRegistry, 500),
+                new UserAvailabilityFilter(repository, meterRegistry, 10_000, 0.01, false, 500),
+                new UserStatistics(repository, unused(ReactiveTransactionManager.class), meterRegistry, 30, true, Duration.ofSeconds(1)),
+                new UserServiceMetrics(meterRegistry));
+        service.findById(user.getId()).block();
+    }
+
+    @Benchmark
+    public User findByIdCached() {
+        return service.findById(user.getId()).block();
+    }
+
+    @Benchmark
+    public User findByIdUncached() {
+        return coalescer.lookup(UUID.randomUUID(), batcher::load).block();
+    }
+
+    @Benchmark
+    public UserPage findFirstPage() {
+        return service.findPage(null, PAGE_SIZE).block();
+    }
+
+    // Statistics are never reconciled here, so nothing should reach their transaction manager
+    private static <T> T unused(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
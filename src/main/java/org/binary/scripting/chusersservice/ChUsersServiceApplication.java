@@ -1,5 +1,6 @@
 package org.binary.scripting.chusersservice;
 
+import org.binary.scripting.chusersservice.config.SchemaMigration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,6 +8,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class ChUsersServiceApplication {
 
     public static void main(String[] args) {
+        if (SchemaMigration.isRequested(args)) {
+            SchemaMigration.run(args);
+            return;
+        }
         SpringApplication.run(ChUsersServiceApplication.class, args);
     }
 
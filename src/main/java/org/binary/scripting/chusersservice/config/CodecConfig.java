@@ -0,0 +1,24 @@
+package org.binary.scripting.chusersservice.config;
+
+import org.binary.scripting.chusersservice.controller.UserJsonEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Registers {@link UserJsonEncoder} ahead of the default Jackson encoder, so every JSON and NDJSON user
+ * response goes through it. Other types, and server-sent events, still use Jackson.
+ */
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public CodecCustomizer userJsonEncoderCustomizer(@Value("${app.users.json.batch-size:64}") int batchSize,
+                                                     @Value("${app.users.json.batch-window:1ms}") Duration batchWindow) {
+        UserJsonEncoder encoder = new UserJsonEncoder(batchSize, batchWindow);
+        return configurer -> configurer.customCodecs().register(encoder);
+    }
+}
@@ -0,0 +1,26 @@
+package org.binary.scripting.chusersservice.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import net.logstash.logback.appender.listener.AppenderListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events the async appenders in {@code logback-spring.xml} drop because their ring buffer is full.
+ * The appenders never block the logging thread, so under a burst the overflow is discarded rather than
+ * stalling the Netty event loop; {@link LoggingMetricsConfig} exposes the count.
+ */
+public class DroppedLogEventsListener implements AppenderListener<ILoggingEvent> {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    @Override
+    public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+        DROPPED.increment();
+    }
+
+    public static long droppedCount() {
+        return DROPPED.sum();
+    }
+}
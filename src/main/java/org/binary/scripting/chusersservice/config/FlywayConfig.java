@@ -2,10 +2,11 @@ package org.binary.scripting.chusersservice.config;
 
 import org.flywaydb.core.Flyway;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Map;
+
 @Configuration
 public class FlywayConfig {
 
@@ -21,12 +22,32 @@ public class FlywayConfig {
     @Value("${spring.flyway.locations:classpath:db/migration}")
     private String locations;
 
-    @Bean(initMethod = "migrate")
+    @Value("${spring.flyway.enabled:true}")
+    private boolean enabled;
+
+    @Value("${" + SchemaMode.PROPERTY + ":migrate}")
+    private SchemaMode mode;
+
+    /**
+     * Enabled and mode are checked here rather than with conditions: AOT processing fixes conditions at build
+     * time, and the CDS training run in Dockerfile.fast-startup has to start the context without a database.
+     * Building the {@code Flyway} instance doesn't connect or scan; only {@code migrate()} does.
+     * <p>
+     * The schema-history lock is a session advisory lock rather than Flyway's default transactional one, which
+     * keeps a transaction open for the whole run; {@code CREATE INDEX CONCURRENTLY} in a non-transactional
+     * migration waits for every open transaction and would never finish.
+     */
+    @Bean
     public Flyway flyway() {
-        return Flyway.configure()
+        Flyway flyway = Flyway.configure()
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
                 .dataSource(url, user, password)
                 .locations(locations)
                 .baselineOnMigrate(true)
                 .load();
+        if (enabled && mode != SchemaMode.VALIDATE) {
+            flyway.migrate();
+        }
+        return flyway;
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package org.binary.scripting.chusersservice.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many events per second a logger (and its children) may emit below WARN, so a chatty logger
+ * switched to DEBUG in production can't flood the appenders. Configured in {@code logback-spring.xml} from
+ * {@code app.logging.rate-limits}, a comma-separated list of {@code logger=eventsPerSecond}; the most specific
+ * configured logger applies and all of its children share its budget. Events over the budget are denied
+ * before a {@code LoggingEvent} is built and counted in {@link #deniedCount()}.
+ */
+public class LoggerRateLimitFilter extends TurboFilter {
+
+    private static final LongAdder DENIED = new LongAdder();
+    private static final Budget UNLIMITED = new Budget(Integer.MAX_VALUE);
+
+    private Map<String, Budget> configured = Map.of();
+    private final Map<String, Budget> byLogger = new ConcurrentHashMap<>();
+
+    public void setLimits(String limits) {
+        Map<String, Budget> parsed = new HashMap<>();
+        for (String entry : limits.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            try {
+                parsed.put(entry.substring(0, separator).trim(), new Budget(Integer.parseInt(entry.substring(separator + 1).trim())));
+            } catch (RuntimeException e) {
+                addError("Ignoring malformed rate limit '" + entry.trim() + "', expected logger=eventsPerSecond");
+            }
+        }
+        configured = parsed;
+        byLogger.clear();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // A null format is an isXxxEnabled() check; only rate-limit events that are actually being logged
+        if (format == null || !isStarted() || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Budget budget = byLogger.computeIfAbsent(logger.getName(), this::budgetFor);
+        if (budget == UNLIMITED || budget.tryAcquire(System.currentTimeMillis() / 1000)) {
+            return FilterReply.NEUTRAL;
+        }
+        DENIED.increment();
+        return FilterReply.DENY;
+    }
+
+    public static long deniedCount() {
+        return DENIED.sum();
+    }
+
+    private Budget budgetFor(String loggerName) {
+        for (String name = loggerName; ; name = name.substring(0, name.lastIndexOf('.'))) {
+            Budget budget = configured.get(name);
+            if (budget != null) {
+                return budget;
+            }
+            if (name.lastIndexOf('.') < 0) {
+                return UNLIMITED;
+            }
+        }
+    }
+
+    /**
+     * Fixed one-second window; close enough for shedding log volume and cheaper than a token bucket.
+     */
+    private static final class Budget {
+
+        private final int perSecond;
+        private final AtomicLong window = new AtomicLong();
+        private final AtomicInteger used = new AtomicInteger();
+
+        Budget(int perSecond) {
+            if (perSecond < 0) {
+                throw new IllegalArgumentException("Rate limit must not be negative");
+            }
+            this.perSecond = perSecond;
+        }
+
+        boolean tryAcquire(long second) {
+            long current = window.get();
+            if (current != second && window.compareAndSet(current, second)) {
+                used.set(0);
+            }
+            return used.incrementAndGet() <= perSecond;
+        }
+    }
+}
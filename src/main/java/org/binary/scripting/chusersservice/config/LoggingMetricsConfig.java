@@ -0,0 +1,30 @@
+package org.binary.scripting.chusersservice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Exposes log events the logging pipeline discarded as {@code logging.events.dropped{reason}}. The counts live
+ * in static fields because logback creates its filters and listeners before the application context exists.
+ */
+@Configuration
+public class LoggingMetricsConfig {
+
+    @Bean
+    public MeterBinder droppedLogEventMetrics() {
+        return registry -> {
+            dropped("queue-full", DroppedLogEventsListener::droppedCount).register(registry);
+            dropped("rate-limited", LoggerRateLimitFilter::deniedCount).register(registry);
+        };
+    }
+
+    private static FunctionCounter.Builder<LongSupplier> dropped(String reason, LongSupplier count) {
+        return FunctionCounter.builder("logging.events.dropped", count, LongSupplier::getAsLong)
+                .description("Log events discarded before reaching an appender")
+                .tag("reason", reason);
+    }
+}
@@ -0,0 +1,88 @@
+package org.binary.scripting.chusersservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query timers ({@code r2dbc.query}) come from Boot's R2DBC observation support once r2dbc-proxy is on
+ * the classpath, and pool gauges ({@code r2dbc.pool.*}) from its pool metrics. This adds the one piece
+ * neither records: how long callers wait to get a connection from the pool.
+ */
+@Configuration
+public class R2dbcMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionAcquireTimer(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Boot's decorators wrap the driver's factory inside the pool, so wrap the pool itself
+                return bean instanceof ConnectionPool pool ? new TimedConnectionFactory(pool, meterRegistry.getObject()) : bean;
+            }
+        };
+    }
+
+    /**
+     * Times {@link #create()} on the pool. Implements {@link Wrapped} so Boot's pool metrics still find the
+     * pool, and {@link Closeable} so the pool is still disposed with the context.
+     */
+    static final class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable {
+
+        private final ConnectionPool pool;
+        private final Timer acquired;
+        private final Timer failed;
+
+        TimedConnectionFactory(ConnectionPool pool, MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.acquired = acquireTimer(meterRegistry, "success");
+            this.failed = acquireTimer(meterRegistry, "failure");
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return pool.create()
+                        .doOnSuccess(connection -> acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                        .doOnError(error -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            });
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return pool.getMetadata();
+        }
+
+        @Override
+        public ConnectionFactory unwrap() {
+            return pool;
+        }
+
+        @Override
+        public Publisher<Void> close() {
+            return pool.close();
+        }
+
+        private static Timer acquireTimer(MeterRegistry meterRegistry, String result) {
+            return Timer.builder("r2dbc.connection.acquire")
+                    .description("Time from asking the pool for a connection until it was handed out")
+                    .tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
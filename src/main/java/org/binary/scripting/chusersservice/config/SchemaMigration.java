@@ -0,0 +1,39 @@
+package org.binary.scripting.chusersservice.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Entry point for {@link SchemaMode#MIGRATE_ONLY}: a context holding only {@link FlywayConfig}, so nothing
+ * but the migration runs, and the process exits when it's done. A failed migration exits non-zero.
+ */
+@Import(FlywayConfig.class)
+public class SchemaMigration {
+
+    /**
+     * Whether {@code app.schema.mode=migrate-only} was given on the command line or as {@code APP_SCHEMA_MODE}.
+     * Read before any context exists, so application.properties is not consulted.
+     */
+    public static boolean isRequested(String[] args) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        String mode = environment.getProperty(SchemaMode.PROPERTY, "");
+        return mode.replace('-', '_').equalsIgnoreCase(SchemaMode.MIGRATE_ONLY.name());
+    }
+
+    public static void run(String[] args) {
+        // The AOT-generated initializer in the fast-startup image describes the full application, not this context
+        SpringProperties.setProperty(AotDetector.AOT_ENABLED, "false");
+        new SpringApplicationBuilder(SchemaMigration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args)
+                .close();
+    }
+}
@@ -0,0 +1,25 @@
+package org.binary.scripting.chusersservice.config;
+
+/**
+ * How an instance treats the database schema, set with {@code app.schema.mode}.
+ */
+public enum SchemaMode {
+
+    /**
+     * Apply pending migrations during startup, then run normally. Fine for a single instance or local use.
+     */
+    MIGRATE,
+
+    /**
+     * Never migrate; stay out of readiness until a migration run has brought the schema up to date.
+     */
+    VALIDATE,
+
+    /**
+     * Apply pending migrations and exit, without starting the web server, R2DBC or Kafka. Meant for a
+     * Kubernetes Job that runs before the application pods roll.
+     */
+    MIGRATE_ONLY;
+
+    public static final String PROPERTY = "app.schema.mode";
+}
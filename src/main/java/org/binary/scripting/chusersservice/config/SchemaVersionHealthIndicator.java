@@ -0,0 +1,83 @@
+package org.binary.scripting.chusersservice.config;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.AbstractReactiveHealthIndicator;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} until the schema is at least at the newest migration this build ships, so in
+ * {@link SchemaMode#VALIDATE} a pod only becomes ready once the migration Job has run. Reads
+ * {@code flyway_schema_history} over R2DBC and only lists the migration file names, so it needs neither a
+ * JDBC connection nor Flyway's scanner. Once the schema is current it stops querying.
+ */
+@Component
+public class SchemaVersionHealthIndicator extends AbstractReactiveHealthIndicator {
+
+    private static final Pattern VERSIONED_MIGRATION = Pattern.compile("V(.+?)__.*\\.sql");
+
+    private final DatabaseClient databaseClient;
+    private final MigrationVersion expected;
+    private volatile boolean current;
+
+    public SchemaVersionHealthIndicator(DatabaseClient databaseClient,
+                                        @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations) {
+        super("Schema version check failed");
+        this.databaseClient = databaseClient;
+        this.expected = latestMigration(locations);
+    }
+
+    @Override
+    protected Mono<Health> doHealthCheck(Health.Builder builder) {
+        builder.withDetail("expected", expected.toString());
+        if (current) {
+            return Mono.just(builder.up().build());
+        }
+        return databaseClient.sql("SELECT version FROM flyway_schema_history WHERE success AND version IS NOT NULL")
+                .map(row -> MigrationVersion.fromVersion(row.get("version", String.class)))
+                .all()
+                .reduce(BinaryOperator.maxBy(Comparator.naturalOrder()))
+                .map(applied -> {
+                    builder.withDetail("applied", applied.toString());
+                    if (applied.compareTo(expected) >= 0) {
+                        current = true;
+                        return builder.up().build();
+                    }
+                    return builder.outOfService().build();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> builder.outOfService().build()));
+    }
+
+    static MigrationVersion latestMigration(String[] locations) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        return Arrays.stream(locations)
+                .flatMap(location -> {
+                    try {
+                        return Arrays.stream(resolver.getResources(location.trim().replaceFirst("^filesystem:", "file:") + "/V*__*.sql"));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .map(Resource::getFilename)
+                .filter(Objects::nonNull)
+                .map(VERSIONED_MIGRATION::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> MigrationVersion.fromVersion(matcher.group(1)))
+                .max(Comparator.naturalOrder())
+                .orElse(MigrationVersion.EMPTY);
+    }
+}
@@ -0,0 +1,87 @@
+package org.binary.scripting.chusersservice.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs one line per completed request, sampled per endpoint so hot reads don't log on every call. The rate
+ * for a handler method comes from {@code app.logging.requests.sample-rate.<methodName>} (e.g.
+ * {@code ...sample-rate.getById=0.001}), falling back to {@code app.logging.requests.sample-rate.default}.
+ * Server errors, and exceptions that don't carry a status and so become one, are always logged at WARN. A
+ * {@code ResponseStatusException} or other {@link ErrorResponse} with a 4xx status is a client's mistake and is
+ * sampled like any other request, so bad requests can't flood the log.
+ */
+@Slf4j
+@Component
+public class RequestLogFilter implements WebFilter {
+
+    static final String SAMPLE_RATE_PREFIX = "app.logging.requests.sample-rate.";
+
+    private final Environment environment;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates = new ConcurrentHashMap<>();
+
+    public RequestLogFilter(Environment environment,
+                            @Value("${app.logging.requests.sample-rate.default:0.01}") double defaultSampleRate) {
+        this.environment = environment;
+        this.defaultSampleRate = defaultSampleRate;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> completed(exchange, start, null))
+                .doOnError(error -> completed(exchange, start, error));
+    }
+
+    private void completed(ServerWebExchange exchange, long start, Throwable error) {
+        HttpStatusCode status = error instanceof ErrorResponse response
+                ? response.getStatusCode()
+                : exchange.getResponse().getStatusCode();
+        boolean unhandled = error != null && !(error instanceof ErrorResponse);
+        if (unhandled || (status != null && status.is5xxServerError())) {
+            log.warn("{} {} -> {} in {} ms", exchange.getRequest().getMethod(), route(exchange),
+                    unhandled ? error.getClass().getSimpleName() : status.value(), elapsedMillis(start));
+            return;
+        }
+        if (log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate(exchange)) {
+            log.info("{} {} -> {} in {} ms", exchange.getRequest().getMethod(), route(exchange),
+                    status != null ? status.value() : 200, elapsedMillis(start));
+        }
+    }
+
+    double sampleRate(ServerWebExchange exchange) {
+        Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod method)) {
+            return defaultSampleRate;
+        }
+        return sampleRates.computeIfAbsent(method.getMethod().getName(),
+                name -> environment.getProperty(SAMPLE_RATE_PREFIX + name, Double.class, defaultSampleRate));
+    }
+
+    private static Object route(ServerWebExchange exchange) {
+        // The matched pattern rather than the raw path, so ids don't end up in the logs
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern : exchange.getRequest().getPath().value();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
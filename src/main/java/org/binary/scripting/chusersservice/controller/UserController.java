@@ -9,14 +9,31 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.dto.UserAvailability;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserCursor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserProjection;
+import org.binary.scripting.chusersservice.dto.UserStats;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
 import org.binary.scripting.chusersservice.entity.User;
 import org.binary.scripting.chusersservice.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.info.BuildProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -29,34 +46,195 @@ public class UserController {
     private final UserService service;
     private final BuildProperties buildProperties;
 
+    @Value("${app.users.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String FIELDS_DESCRIPTION = "Comma-separated fields to return, e.g. id,username; "
+            + "only these columns are read. All fields when absent";
+
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve a paginated list of all users")
+    @Operation(summary = "Get all users", description = "Retrieve a paginated list of all users. "
+            + "Passing `cursor` switches to keyset pagination; the next page's cursor is returned in the "
+            + NEXT_CURSOR_HEADER + " header and is absent on the last page. Each page carries an ETag over the ids and versions "
+            + "it contains; a matching If-None-Match gets 304.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved users",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the given ETag", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or unknown field", content = @Content)
     })
-    public Flux<User> getAll(
-            @Parameter(description = "Page number (0-indexed)", example = "0")
+    public Mono<ResponseEntity<Flux<UserProjection>>> getAll(
+            @Parameter(description = "Page number (0-indexed), ignored when a cursor is given", example = "0")
             @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Number of users per page", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
-        log.info("Getting users - page: {}, size: {}", page, size);
-        return service.findAll(page, size);
+            @Parameter(description = "Number of users per page; larger sizes are clamped to app.users.page.max-size (100 by default)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Opaque keyset cursor; send it empty to start from the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = FIELDS_DESCRIPTION, example = "id,username")
+            @RequestParam(required = false) String fields) {
+        Set<UserField> selected = parseFields(fields);
+        if (cursor == null) {
+            log.debug("Getting users - page: {}, size: {}, fields: {}", page, size, selected);
+            return service.findAll(page, size, selected)
+                    .collectList()
+                    .map(users -> ResponseEntity.ok()
+                            .eTag(UserETags.of(users, selected))
+                            .body(project(users, selected)));
+        }
+        log.debug("Getting users - cursor: {}, size: {}, fields: {}", cursor, size, selected);
+        return service.findPage(decodeCursor(cursor), size, selected)
+                .map(userPage -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(UserETags.of(userPage.users(), selected));
+                    if (userPage.next() != null) {
+                        response.header(NEXT_CURSOR_HEADER, userPage.next().encode());
+                    }
+                    return response.body(project(userPage.users(), selected));
+                });
+    }
+
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream all users", description = "Export every user as newline-delimited JSON or server-sent events. "
+            + "Rows are read from a single query as the client consumes them, so the full table never sits in memory.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Users streamed",
+                    content = {
+                            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = User.class)),
+                            @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = User.class))
+                    })
+    })
+    public Flux<User> stream() {
+        log.debug("Streaming all users");
+        return service.streamAll();
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search users by prefix", description = "Autocomplete users whose username, email, first name, last name "
+            + "or full name starts with `prefix`, ignoring case. Served from an in-memory index that is eventually consistent "
+            + "with writes made on other instances.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching users",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSuggestion.class))),
+            @ApiResponse(responseCode = "400", description = "Missing prefix", content = @Content)
+    })
+    public Flux<UserSuggestion> search(
+            @Parameter(description = "Start of a username, email or name", required = true, example = "joh")
+            @RequestParam String prefix,
+            @Parameter(description = "Maximum number of users to return", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (prefix.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "prefix must not be blank");
+        }
+        log.debug("Searching users - prefix: {}, limit: {}", prefix, limit);
+        return service.search(prefix, limit);
+    }
+
+    @GetMapping("/availability")
+    @Operation(summary = "Check username/email availability", description = "Report whether a username and/or email is free, "
+            + "ignoring case. Taken values are checked against the database; free ones are answered from an in-memory "
+            + "filter unless it is configured to confirm them there too.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Availability checked",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserAvailability.class))),
+            @ApiResponse(responseCode = "400", description = "Neither username nor email given", content = @Content)
+    })
+    public Mono<UserAvailability> availability(
+            @Parameter(description = "Username to check", example = "johndoe")
+            @RequestParam(required = false) String username,
+            @Parameter(description = "Email to check", example = "john.doe@example.com")
+            @RequestParam(required = false) String email) {
+        checkAvailabilityQuery(username, email);
+        log.debug("Checking availability - username: {}, email: {}", username, email);
+        return service.checkAvailability(username, email);
+    }
+
+    @RequestMapping(value = "/availability", method = RequestMethod.HEAD)
+    @Operation(summary = "Check username/email availability without a body",
+            description = "200 when every given value is free, 409 when any is taken.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "All given values are free"),
+            @ApiResponse(responseCode = "409", description = "A given value is taken"),
+            @ApiResponse(responseCode = "400", description = "Neither username nor email given")
+    })
+    public Mono<ResponseEntity<Void>> availabilityStatus(
+            @Parameter(description = "Username to check", example = "johndoe")
+            @RequestParam(required = false) String username,
+            @Parameter(description = "Email to check", example = "john.doe@example.com")
+            @RequestParam(required = false) String email) {
+        checkAvailabilityQuery(username, email);
+        return service.checkAvailability(username, email)
+                .map(availability -> ResponseEntity.status(availability.available() ? HttpStatus.OK : HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get user statistics", description = "Total number of users and signups per UTC day. "
+            + "Served from memory: local writes show up immediately, writes made on other instances at the next "
+            + "periodic reconcile with the database.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserStats.class))),
+            @ApiResponse(responseCode = "503", description = "Statistics not yet read from the database", content = @Content)
+    })
+    public Mono<ResponseEntity<UserStats>> stats() {
+        log.debug("Getting user statistics");
+        return service.stats()
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get user by ID", description = "Retrieve a specific user by their UUID")
+    @Operation(summary = "Get user by ID", description = "Retrieve a specific user by their UUID. "
+            + "The response carries ETag and Last-Modified; a matching If-None-Match or If-Modified-Since gets 304.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the given ETag or date", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public Mono<ResponseEntity<User>> getById(
+    public Mono<ResponseEntity<UserProjection>> getById(
             @Parameter(description = "User UUID", required = true)
-            @PathVariable UUID id) {
-        log.info("Getting user with id: {}", id);
-        return service.findById(id)
-                .map(ResponseEntity::ok)
+            @PathVariable UUID id,
+            @Parameter(description = FIELDS_DESCRIPTION, example = "id,username")
+            @RequestParam(required = false) String fields) {
+        Set<UserField> selected = parseFields(fields);
+        log.debug("Getting user with id: {}, fields: {}", id, selected);
+        return service.findById(id, selected)
+                .map(user -> okWithValidators(user, selected).body(UserProjection.of(user, selected)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/by-username/{username}")
+    @Operation(summary = "Get user by username", description = "Retrieve a user by username, ignoring case")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "User found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the given ETag or date", content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    })
+    public Mono<ResponseEntity<User>> getByUsername(
+            @Parameter(description = "Username", required = true, example = "johndoe")
+            @PathVariable String username) {
+        log.debug("Getting user with username: {}", username);
+        return service.findByUsername(username)
+                .map(UserController::okWithValidators)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/by-email/{email}")
+    @Operation(summary = "Get user by email", description = "Retrieve a user by email address, ignoring case")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "User found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the given ETag or date", content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    })
+    public Mono<ResponseEntity<User>> getByEmail(
+            @Parameter(description = "Email address", required = true, example = "john.doe@example.com")
+            @PathVariable String email) {
+        log.debug("Getting user with email: {}", email);
+        return service.findByEmail(email)
+                .map(UserController::okWithValidators)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
@@ -65,7 +243,8 @@ public class UserController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User created successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Username or email already taken", content = @Content)
     })
     public Mono<User> create(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -73,17 +252,81 @@ public class UserController {
                     required = true,
                     content = @Content(schema = @Schema(implementation = User.class)))
             @RequestBody User user) {
-        log.info("Creating user {}", user);
+        log.atDebug().setMessage("Creating user {}").addArgument(user::getUsername).log();
         return service.create(user);
     }
 
+    @PostMapping(value = "/lookup", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get users by IDs",
+            description = "Retrieve many users in one call. Users are streamed back as they are found, in no particular order; "
+                    + "unknown and duplicate ids are skipped.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Users found",
+                    content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = User.class)),
+                            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = User.class))
+                    }),
+            @ApiResponse(responseCode = "400", description = "Too many ids, or a null id", content = @Content)
+    })
+    public Flux<User> lookup(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "User UUIDs to look up",
+                    required = true)
+            @RequestBody List<UUID> ids) {
+        log.debug("Looking up {} users by id", ids.size());
+        checkBatch(ids);
+        return service.findAllById(ids);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create users in batch",
+            description = "Create many users in one transaction. Ids are assigned by the server; an item that carries "
+                    + "one is reported as invalid. Results are returned per item, in request order.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserBatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Batch too large, or a null item", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A username or email is already taken; nothing was written", content = @Content)
+    })
+    public Flux<UserBatchResult> createAll(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Users to create",
+                    required = true)
+            @RequestBody List<User> users) {
+        log.debug("Creating {} users in batch", users.size());
+        checkBatch(users);
+        return service.createAll(users);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update users in batch",
+            description = "Update many users, identified by their id, in one transaction. Results are returned per item, in request order.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserBatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Batch too large, or a null item", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A username or email is already taken; nothing was written", content = @Content)
+    })
+    public Flux<UserBatchResult> updateAll(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Users to update, each carrying its id",
+                    required = true)
+            @RequestBody List<User> users) {
+        log.debug("Updating {} users in batch", users.size());
+        checkBatch(users);
+        return service.updateAll(users);
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Update user", description = "Update an existing user by their UUID")
+    @Operation(summary = "Update user", description = "Update an existing user by their UUID. "
+            + "With If-Match, the update only applies while the user still has one of the given ETags.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User updated successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content),
-            @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content)
+            @ApiResponse(responseCode = "412", description = "User changed since the ETag in If-Match, or does not exist", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Username or email already taken", content = @Content)
     })
     public Mono<ResponseEntity<User>> update(
             @Parameter(description = "User UUID", required = true)
@@ -92,9 +335,50 @@ public class UserController {
                     description = "Updated user object",
                     required = true,
                     content = @Content(schema = @Schema(implementation = User.class)))
-            @RequestBody User user) {
-        return service.update(id, user)
-                .map(ResponseEntity::ok)
+            @RequestBody User user,
+            @Parameter(description = "ETags the user must still have for the update to apply, or *")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) List<String> ifMatch) {
+        if (ifMatch == null || ifMatch.isEmpty()) {
+            return service.update(id, user)
+                    .map(UserController::okWithValidators)
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        }
+        ResponseEntity<User> preconditionFailed = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        if (UserETags.isAny(ifMatch)) {
+            return service.update(id, user)
+                    .map(UserController::okWithValidators)
+                    .defaultIfEmpty(preconditionFailed);
+        }
+        Set<Long> versions = UserETags.versions(id, ifMatch);
+        if (versions.isEmpty()) {
+            return Mono.just(preconditionFailed);
+        }
+        return service.updateIfVersion(id, user, versions)
+                .map(UserController::okWithValidators)
+                .defaultIfEmpty(preconditionFailed);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Partially update user",
+            description = "Update only the fields present (non-null) in the request body; all other fields keep their current values. "
+                    + "A body without any such field changes nothing and returns the user as it is")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "User updated successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Username or email already taken", content = @Content)
+    })
+    public Mono<ResponseEntity<User>> patch(
+            @Parameter(description = "User UUID", required = true)
+            @PathVariable UUID id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Fields to change",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = User.class)))
+            @RequestBody User changes) {
+        return service.patch(id, changes)
+                .map(UserController::okWithValidators)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
@@ -109,5 +393,65 @@ public class UserController {
             @PathVariable UUID id) {
         return service.delete(id);
     }
+
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<ProblemDetail> handleDuplicateKey(DuplicateKeyException e) {
+        log.info("Rejected write that duplicates an existing username or email: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Username or email is already taken"));
+    }
+
+    private static ResponseEntity<User> okWithValidators(User user) {
+        return okWithValidators(user, UserField.ALL).body(user);
+    }
+
+    private static ResponseEntity.BodyBuilder okWithValidators(User user, Set<UserField> fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(UserETags.of(user, fields));
+        Instant lastModified = UserETags.lastModified(user);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response;
+    }
+
+    private static Flux<UserProjection> project(List<User> users, Set<UserField> fields) {
+        return Flux.fromIterable(users).map(user -> UserProjection.of(user, fields));
+    }
+
+    private static Set<UserField> parseFields(String fields) {
+        try {
+            return UserField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static void checkAvailabilityQuery(String username, String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "username or email is required");
+        }
+    }
+
+    private void checkBatch(List<?> items) {
+        if (items.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + items.size() + " exceeds the limit of " + maxBatchSize);
+        }
+        // A JSON null element would otherwise reach the service and fail there as a 500
+        if (items.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch contains a null item at index " + items.indexOf(null));
+        }
+    }
+
+    private static UserCursor decodeCursor(String cursor) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return UserCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
 }
 
@@ -0,0 +1,96 @@
+package org.binary.scripting.chusersservice.controller;
+
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Strong entity tags for users. A single user's tag is {@code "<id>-<version>"}, so an {@code If-Match} can be
+ * turned back into the version to compare in the UPDATE; a list's tag is a hash over every id and version in it.
+ * A sparse fieldset is a different representation, so its tags also name the fields, as {@code "<id>-<version>.<fields>"}.
+ */
+final class UserETags {
+
+    static final String ANY = "*";
+
+    private UserETags() {
+    }
+
+    static String of(User user) {
+        return of(user, UserField.ALL);
+    }
+
+    static String of(User user, Set<UserField> fields) {
+        return "\"" + user.getId() + "-" + version(user) + fieldsSuffix(fields) + "\"";
+    }
+
+    static String of(List<User> users, Set<UserField> fields) {
+        long hash = users.size() ^ ((long) mask(fields) << 32);
+        for (User user : users) {
+            hash = mix(hash ^ user.getId().getMostSignificantBits());
+            hash = mix(hash ^ user.getId().getLeastSignificantBits());
+            hash = mix(hash ^ version(user));
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    static Instant lastModified(User user) {
+        return user.getModifiedAt() != null ? user.getModifiedAt() : user.getCreatedAt();
+    }
+
+    /**
+     * The versions named by {@code If-Match} tags that belong to {@code id}. Weak tags never match for writes,
+     * and tags of other users or in another format are ignored, so an empty result means nothing can match.
+     */
+    static Set<Long> versions(UUID id, List<String> ifMatch) {
+        Set<Long> versions = new LinkedHashSet<>();
+        String prefix = "\"" + id + "-";
+        for (String header : ifMatch) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                    String version = tag.substring(prefix.length(), tag.length() - 1);
+                    int fields = version.indexOf('.');
+                    try {
+                        versions.add(Long.parseLong(fields < 0 ? version : version.substring(0, fields)));
+                    } catch (NumberFormatException e) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        return versions;
+    }
+
+    static boolean isAny(List<String> ifMatch) {
+        return ifMatch.stream().anyMatch(header -> header.trim().equals(ANY));
+    }
+
+    private static String fieldsSuffix(Set<UserField> fields) {
+        return fields.containsAll(UserField.ALL) ? "" : "." + Integer.toHexString(mask(fields));
+    }
+
+    private static int mask(Set<UserField> fields) {
+        int mask = 0;
+        for (UserField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        return mask;
+    }
+
+    private static long version(User user) {
+        return user.getVersion() != null ? user.getVersion() : 0L;
+    }
+
+    // SplitMix64 finalizer, so neighbouring ids and versions don't produce neighbouring tags
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
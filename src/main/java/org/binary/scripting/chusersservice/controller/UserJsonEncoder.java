@@ -0,0 +1,352 @@
+package org.binary.scripting.chusersservice.controller;
+
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserProjection;
+import org.binary.scripting.chusersservice.entity.User;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes {@link User} and {@link UserProjection} as JSON without going through Jackson: field names are
+ * encoded once, values are written straight into a reusable byte array, and up to {@code batchSize}
+ * elements are copied into each pooled {@link DataBuffer}, so a page or stream of users costs a handful of
+ * buffers rather than one buffer and one generator pass per user. The output is byte-for-byte what the
+ * default Jackson encoder writes for these types.
+ * <p>
+ * A {@code Flux} is batched for at most {@code batchWindow} before the elements collected so far are written,
+ * so a slow {@code application/x-ndjson} stream is never held back waiting for a full batch.
+ */
+public class UserJsonEncoder implements HttpMessageEncoder<Object> {
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON);
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = List.of(MediaType.APPLICATION_NDJSON);
+
+    // A full user is about 350 bytes of JSON; sizing the scratch array for each batch up front avoids regrowing it
+    private static final int BYTES_PER_USER = 512;
+
+    private final int batchSize;
+    private final Duration batchWindow;
+
+    public UserJsonEncoder(int batchSize, Duration batchWindow) {
+        this.batchSize = batchSize;
+        this.batchWindow = batchWindow;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        Class<?> type = elementType.toClass();
+        return (type == User.class || type == UserProjection.class)
+                && (mimeType == null || MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return STREAMING_MEDIA_TYPES;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (input instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        boolean lines = mimeType != null && MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mimeType);
+        return Flux.defer(() -> {
+            Output out = new Output(BYTES_PER_USER);
+            Flux<DataBuffer> elements = Flux.from(input)
+                    .bufferTimeout(batchSize, batchWindow, true)
+                    .map(batch -> {
+                        out.ensureCapacity(batch.size() * BYTES_PER_USER);
+                        for (Object element : batch) {
+                            if (!lines) {
+                                out.writeByte(out.started ? ',' : '[');
+                                out.started = true;
+                            }
+                            writeElement(out, element);
+                            if (lines) {
+                                out.writeByte('\n');
+                            }
+                        }
+                        return out.drainTo(bufferFactory);
+                    });
+            if (lines) {
+                return elements;
+            }
+            return elements.concatWith(Mono.fromSupplier(() -> {
+                if (!out.started) {
+                    out.writeByte('[');
+                }
+                out.writeByte(']');
+                return out.drainTo(bufferFactory);
+            }));
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        Output out = new Output(BYTES_PER_USER);
+        writeElement(out, value);
+        return out.drainTo(bufferFactory);
+    }
+
+    private static void writeElement(Output out, Object element) {
+        if (element instanceof UserProjection projection) {
+            out.writeUser(projection.user(), projection.fields());
+        } else {
+            out.writeUser((User) element, UserField.ALL);
+        }
+    }
+
+    /**
+     * Growable byte array the JSON is written into; one per encoded response, reused for every batch.
+     */
+    static final class Output {
+
+        private static final byte[] HEX_LOWER = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HEX_UPPER = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[][] NAMES = new byte[UserField.values().length][];
+
+        /**
+         * How each ASCII character is written inside a string: 0 as is, -1 as {@code \}{@code u00XX}, otherwise
+         * as a backslash and this character. Matches Jackson's default escaping.
+         */
+        private static final int[] ESCAPES = new int[128];
+
+        // 0000-01-01T00:00:00Z and 9999-12-31T23:59:59Z, the range written without a sign or extra year digits
+        private static final long MIN_FAST_SECOND = -62167219200L;
+        private static final long MAX_FAST_SECOND = 253402300799L;
+
+        static {
+            for (UserField field : UserField.values()) {
+                NAMES[field.ordinal()] = ("\"" + field.jsonName() + "\":").getBytes(StandardCharsets.US_ASCII);
+            }
+            for (int c = 0; c < 0x20; c++) {
+                ESCAPES[c] = -1;
+            }
+            ESCAPES['"'] = '"';
+            ESCAPES['\\'] = '\\';
+            ESCAPES['\b'] = 'b';
+            ESCAPES['\t'] = 't';
+            ESCAPES['\f'] = 'f';
+            ESCAPES['\n'] = 'n';
+            ESCAPES['\r'] = 'r';
+        }
+
+        private byte[] bytes;
+        private int length;
+        boolean started;
+
+        Output(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        DataBuffer drainTo(DataBufferFactory bufferFactory) {
+            DataBuffer buffer = bufferFactory.allocateBuffer(length);
+            buffer.write(bytes, 0, length);
+            length = 0;
+            return buffer;
+        }
+
+        void writeUser(User user, Set<UserField> fields) {
+            writeByte('{');
+            boolean first = true;
+            for (UserField field : fields) {
+                if (!first) {
+                    writeByte(',');
+                }
+                first = false;
+                writeBytes(NAMES[field.ordinal()]);
+                switch (field) {
+                    case ID -> writeUuid(user.getId());
+                    case CREATED_AT -> writeInstant(user.getCreatedAt());
+                    case MODIFIED_AT -> writeInstant(user.getModifiedAt());
+                    default -> writeString((String) field.get(user));
+                }
+            }
+            writeByte('}');
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeBytes(NULL);
+                return;
+            }
+            // Worst case is six bytes per char (an escape), so one check covers the whole string
+            ensureCapacity(value.length() * 6 + 2);
+            byte[] out = bytes;
+            int pos = length;
+            out[pos++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    int escape = ESCAPES[c];
+                    if (escape == 0) {
+                        out[pos++] = (byte) c;
+                    } else if (escape > 0) {
+                        out[pos++] = '\\';
+                        out[pos++] = (byte) escape;
+                    } else {
+                        pos = writeUnicodeEscape(out, pos, c);
+                    }
+                } else if (c < 0x800) {
+                    out[pos++] = (byte) (0xC0 | (c >> 6));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogates can't be UTF-8 encoded; escape them so the output stays valid JSON
+                    pos = writeUnicodeEscape(out, pos, c);
+                } else {
+                    out[pos++] = (byte) (0xE0 | (c >> 12));
+                    out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            out[pos++] = '"';
+            length = pos;
+        }
+
+        private static int writeUnicodeEscape(byte[] out, int pos, char c) {
+            out[pos++] = '\\';
+            out[pos++] = 'u';
+            out[pos++] = HEX_UPPER[(c >> 12) & 0xF];
+            out[pos++] = HEX_UPPER[(c >> 8) & 0xF];
+            out[pos++] = HEX_UPPER[(c >> 4) & 0xF];
+            out[pos++] = HEX_UPPER[c & 0xF];
+            return pos;
+        }
+
+        private void writeUuid(UUID value) {
+            if (value == null) {
+                writeBytes(NULL);
+                return;
+            }
+            ensureCapacity(38);
+            bytes[length++] = '"';
+            long msb = value.getMostSignificantBits();
+            long lsb = value.getLeastSignificantBits();
+            writeHex(msb >>> 32, 8);
+            bytes[length++] = '-';
+            writeHex(msb >>> 16, 4);
+            bytes[length++] = '-';
+            writeHex(msb, 4);
+            bytes[length++] = '-';
+            writeHex(lsb >>> 48, 4);
+            bytes[length++] = '-';
+            writeHex(lsb, 12);
+            bytes[length++] = '"';
+        }
+
+        private void writeHex(long value, int digits) {
+            for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+                bytes[length++] = HEX_LOWER[(int) (value >>> shift) & 0xF];
+            }
+        }
+
+        /**
+         * ISO-8601 in UTC with the fraction in groups of three digits, as {@link Instant#toString()} writes it.
+         */
+        private void writeInstant(Instant value) {
+            if (value == null) {
+                writeBytes(NULL);
+                return;
+            }
+            long seconds = value.getEpochSecond();
+            if (seconds < MIN_FAST_SECOND || seconds > MAX_FAST_SECOND) {
+                writeString(value.toString());
+                return;
+            }
+            ensureCapacity(32);
+            long epochDay = Math.floorDiv(seconds, 86_400L);
+            int secondOfDay = (int) Math.floorMod(seconds, 86_400L);
+            // Days to civil date, after Howard Hinnant's days_from_civil inverse
+            long z = epochDay + 719_468L;
+            long era = Math.floorDiv(z, 146_097L);
+            long dayOfEra = z - era * 146_097L;
+            long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long shiftedMonth = (5 * dayOfYear + 2) / 153;
+            int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+            int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+            int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+            bytes[length++] = '"';
+            writeDigits(year, 4);
+            bytes[length++] = '-';
+            writeDigits(month, 2);
+            bytes[length++] = '-';
+            writeDigits(day, 2);
+            bytes[length++] = 'T';
+            writeDigits(secondOfDay / 3_600, 2);
+            bytes[length++] = ':';
+            writeDigits(secondOfDay / 60 % 60, 2);
+            bytes[length++] = ':';
+            writeDigits(secondOfDay % 60, 2);
+            int nanos = value.getNano();
+            if (nanos != 0) {
+                bytes[length++] = '.';
+                if (nanos % 1_000_000 == 0) {
+                    writeDigits(nanos / 1_000_000, 3);
+                } else if (nanos % 1_000 == 0) {
+                    writeDigits(nanos / 1_000, 6);
+                } else {
+                    writeDigits(nanos, 9);
+                }
+            }
+            bytes[length++] = 'Z';
+            bytes[length++] = '"';
+        }
+
+        private void writeDigits(int value, int digits) {
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+
+        void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
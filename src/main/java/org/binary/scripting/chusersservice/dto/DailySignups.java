@@ -0,0 +1,12 @@
+package org.binary.scripting.chusersservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+/**
+ * Users created on one UTC day.
+ */
+@Schema(description = "Users created on one UTC day")
+public record DailySignups(LocalDate day, long signups) {
+}
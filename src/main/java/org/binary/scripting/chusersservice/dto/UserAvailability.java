@@ -0,0 +1,16 @@
+package org.binary.scripting.chusersservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Whether the requested username and/or email are free; fields for a value that wasn't asked about are omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Availability of a username and/or email")
+public record UserAvailability(String username, Boolean usernameAvailable, String email, Boolean emailAvailable) {
+
+    public boolean available() {
+        return !Boolean.FALSE.equals(usernameAvailable) && !Boolean.FALSE.equals(emailAvailable);
+    }
+}
@@ -0,0 +1,34 @@
+package org.binary.scripting.chusersservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.binary.scripting.chusersservice.entity.User;
+
+/**
+ * Outcome for one element of a batch request, keyed by its position in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserBatchResult(int index, Status status, User user, String error) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    public static UserBatchResult created(int index, User user) {
+        return new UserBatchResult(index, Status.CREATED, user, null);
+    }
+
+    public static UserBatchResult updated(int index, User user) {
+        return new UserBatchResult(index, Status.UPDATED, user, null);
+    }
+
+    public static UserBatchResult notFound(int index) {
+        return new UserBatchResult(index, Status.NOT_FOUND, null, "User not found");
+    }
+
+    public static UserBatchResult invalid(int index, String error) {
+        return new UserBatchResult(index, Status.INVALID, null, error);
+    }
+}
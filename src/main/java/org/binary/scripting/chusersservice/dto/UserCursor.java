@@ -0,0 +1,49 @@
+package org.binary.scripting.chusersservice.dto;
+
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position on {@code (created_at, id)}. Clients only ever see the opaque,
+ * URL-safe token produced by {@link #encode()}.
+ */
+public record UserCursor(Instant createdAt, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public static UserCursor of(User user) {
+        return new UserCursor(user.getCreatedAt(), user.getId());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(createdAt.getEpochSecond())
+                .putInt(createdAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token wasn't produced by {@link #encode()}
+     */
+    public static UserCursor decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Instant createdAt;
+        try {
+            createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        return new UserCursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
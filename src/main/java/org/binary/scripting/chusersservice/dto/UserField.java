@@ -0,0 +1,83 @@
+package org.binary.scripting.chusersservice.dto;
+
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The user fields a client can select with {@code fields=}, each with its JSON name and {@code users} column.
+ * Declared in the order the full representation writes them.
+ */
+public enum UserField {
+    ID("id", "id", User::getId),
+    USERNAME("username", "username", User::getUsername),
+    EMAIL("email", "email", User::getEmail),
+    FIRST_NAME("firstName", "first_name", User::getFirstName),
+    LAST_NAME("lastName", "last_name", User::getLastName),
+    MOBILE_NUMBER("mobileNumber", "mobile_number", User::getMobileNumber),
+    CREATED_BY("createdBy", "created_by", User::getCreatedBy),
+    MODIFIED_BY("modifiedBy", "modified_by", User::getModifiedBy),
+    CREATED_AT("createdAt", "created_at", User::getCreatedAt),
+    MODIFIED_AT("modifiedAt", "modified_at", User::getModifiedAt);
+
+    public static final Set<UserField> ALL = Collections.unmodifiableSet(EnumSet.allOf(UserField.class));
+
+    private final String jsonName;
+    private final String column;
+    private final Function<User, Object> getter;
+
+    UserField(String jsonName, String column, Function<User, Object> getter) {
+        this.jsonName = jsonName;
+        this.column = column;
+        this.getter = getter;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public Object get(User user) {
+        return getter.apply(user);
+    }
+
+    /**
+     * Parses a comma-separated list of JSON field names, e.g. {@code id,username}; {@code null} or blank selects
+     * {@link #ALL}. Names are matched ignoring case.
+     *
+     * @throws IllegalArgumentException on an unknown name
+     */
+    public static Set<UserField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<UserField> selected = EnumSet.noneOf(UserField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                selected.add(byJsonName(trimmed));
+            }
+        }
+        if (selected.isEmpty()) {
+            return ALL;
+        }
+        return selected.size() == ALL.size() ? ALL : Collections.unmodifiableSet(selected);
+    }
+
+    private static UserField byJsonName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (UserField field : values()) {
+            if (field.jsonName.toLowerCase(Locale.ROOT).equals(lower)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown user field: " + name);
+    }
+}
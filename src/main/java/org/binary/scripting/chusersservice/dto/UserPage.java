@@ -0,0 +1,11 @@
+package org.binary.scripting.chusersservice.dto;
+
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.util.List;
+
+/**
+ * One keyset page of users; {@code next} is {@code null} on the last page.
+ */
+public record UserPage(List<User> users, UserCursor next) {
+}
@@ -0,0 +1,52 @@
+package org.binary.scripting.chusersservice.dto;
+
+import org.binary.scripting.chusersservice.entity.User;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Set;
+
+/**
+ * A user as returned by the read endpoints: only the {@code fields} a client selected are written, in
+ * {@link UserField} order. With {@link UserField#ALL} the JSON is the same as the entity's.
+ */
+@JsonSerialize(using = UserProjection.Serializer.class)
+public record UserProjection(User user, Set<UserField> fields) {
+
+    public static UserProjection of(User user) {
+        return new UserProjection(user, UserField.ALL);
+    }
+
+    public static UserProjection of(User user, Set<UserField> fields) {
+        return new UserProjection(user, fields);
+    }
+
+    public boolean isPartial() {
+        return fields.size() < UserField.ALL.size();
+    }
+
+    static class Serializer extends ValueSerializer<UserProjection> {
+
+        private static final SerializableString[] NAMES = new SerializableString[UserField.values().length];
+
+        static {
+            for (UserField field : UserField.values()) {
+                NAMES[field.ordinal()] = new SerializedString(field.jsonName());
+            }
+        }
+
+        @Override
+        public void serialize(UserProjection value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartObject(value);
+            for (UserField field : value.fields()) {
+                gen.writeName(NAMES[field.ordinal()]);
+                ctxt.writeValue(gen, field.get(value.user()));
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.binary.scripting.chusersservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The total number of users and signups per UTC day, oldest day first and with a zero for days without any.
+ * {@code totalEstimated} is set when the total is based on the planner's row estimate rather than a count;
+ * {@code reconciledAt} is when the figures were last read from the database.
+ */
+@Schema(description = "User totals and recent signups")
+public record UserStats(long total, boolean totalEstimated, List<DailySignups> signupsPerDay, Instant reconciledAt) {
+}
@@ -0,0 +1,17 @@
+package org.binary.scripting.chusersservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.binary.scripting.chusersservice.entity.User;
+
+import java.util.UUID;
+
+/**
+ * The fields of a user needed to render an autocomplete entry.
+ */
+@Schema(description = "User matched by a prefix search")
+public record UserSuggestion(UUID id, String username, String email, String firstName, String lastName) {
+
+    public static UserSuggestion of(User user) {
+        return new UserSuggestion(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName());
+    }
+}
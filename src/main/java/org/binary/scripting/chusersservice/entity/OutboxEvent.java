@@ -0,0 +1,89 @@
+package org.binary.scripting.chusersservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.binary.scripting.chusersservice.event.UserEvent;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A {@link UserEvent} waiting to be relayed to Kafka. Rows are written in the same transaction
+ * as the {@code users} change they describe and removed once the broker has acknowledged them.
+ */
+@Table("outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    private Long id;
+
+    @Column("event_id")
+    private UUID eventId;
+
+    @Column("event_type")
+    private UserEvent.EventType eventType;
+
+    @Column("user_id")
+    private UUID userId;
+
+    private String username;
+
+    private String email;
+
+    @Column("first_name")
+    private String firstName;
+
+    @Column("last_name")
+    private String lastName;
+
+    @Column("mobile_number")
+    private String mobileNumber;
+
+    @Column("occurred_at")
+    private Instant occurredAt;
+
+    /**
+     * Until when a relay replica is publishing this event; null when it isn't claimed.
+     */
+    @Column("claimed_until")
+    private Instant claimedUntil;
+
+    public static OutboxEvent from(UserEvent event) {
+        UserEvent.UserPayload payload = event.getPayload();
+        return OutboxEvent.builder()
+                .eventId(event.getEventId())
+                .eventType(event.getEventType())
+                .userId(payload.getUserId())
+                .username(payload.getUsername())
+                .email(payload.getEmail())
+                .firstName(payload.getFirstName())
+                .lastName(payload.getLastName())
+                .mobileNumber(payload.getMobileNumber())
+                .occurredAt(event.getTimestamp())
+                .build();
+    }
+
+    public UserEvent toUserEvent() {
+        return UserEvent.builder()
+                .eventId(eventId)
+                .eventType(eventType)
+                .timestamp(occurredAt)
+                .payload(UserEvent.UserPayload.builder()
+                        .userId(userId)
+                        .username(username)
+                        .email(email)
+                        .firstName(firstName)
+                        .lastName(lastName)
+                        .mobileNumber(mobileNumber)
+                        .build())
+                .build();
+    }
+}
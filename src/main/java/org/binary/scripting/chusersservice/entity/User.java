@@ -1,5 +1,6 @@
 package org.binary.scripting.chusersservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,7 +21,7 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Schema(description = "User entity representing a platform user")
 public class User {
     @Id
@@ -64,5 +65,11 @@ public class User {
     @Column("modified_at")
     @Schema(description = "Timestamp when this record was last modified", example = "2024-01-15T14:45:00Z", accessMode = Schema.AccessMode.READ_ONLY)
     private Instant modifiedAt;
+
+    /**
+     * Incremented by every update. Clients see it only through the {@code ETag} header.
+     */
+    @JsonIgnore
+    private Long version;
 }
 
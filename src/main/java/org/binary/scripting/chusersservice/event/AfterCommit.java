@@ -0,0 +1,46 @@
+package org.binary.scripting.chusersservice.event;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs {@code action} once the surrounding transaction commits, or right away when there is none.
+     * Nothing runs if the transaction rolls back.
+     */
+    public static Mono<Void> run(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(synchronizations -> synchronizations.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(action);
+                    }
+                }))
+                .then()
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action));
+    }
+
+    /**
+     * Like {@link #run}, but for asynchronous work: the commit, and so the caller, completes only once
+     * {@code action}'s {@code Mono} does.
+     */
+    public static Mono<Void> runAndAwait(Supplier<Mono<Void>> action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(synchronizations -> synchronizations.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.defer(action);
+                    }
+                }))
+                .then()
+                .onErrorResume(NoTransactionException.class, e -> Mono.defer(action));
+    }
+}
@@ -0,0 +1,39 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Publishes once the caller's transaction commits without waiting for the ack. Events for rolled-back
+ * writes are never sent; events whose publish fails are logged and counted in {@code user.events.dropped}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = UserEventDelivery.MODE_PROPERTY, havingValue = "async-after-commit")
+public class AfterCommitEventDelivery implements UserEventDelivery {
+
+    private final UserEventPublisher userEventPublisher;
+    private final Counter droppedEvents;
+
+    public AfterCommitEventDelivery(UserEventPublisher userEventPublisher, MeterRegistry meterRegistry) {
+        this.userEventPublisher = userEventPublisher;
+        this.droppedEvents = Counter.builder("user.events.dropped")
+                .description("User events that could not be published after their write committed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> deliver(List<UserEvent> events) {
+        return AfterCommit.run(() -> userEventPublisher.publishAll(events)
+                .subscribe(null, error -> {
+                    log.error("Dropping {} user events after commit", events.size(), error);
+                    droppedEvents.increment(events.size());
+                }));
+    }
+}
@@ -0,0 +1,32 @@
+package org.binary.scripting.chusersservice.event;
+
+import lombok.RequiredArgsConstructor;
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Records events in the {@code outbox} table inside the caller's transaction; {@link OutboxRelay}
+ * ships the rows to Kafka afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = UserEventDelivery.MODE_PROPERTY, havingValue = "outbox", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OutboxEventDelivery implements UserEventDelivery {
+
+    private final OutboxRepository outboxRepository;
+
+    @Override
+    public Mono<Void> deliver(List<UserEvent> events) {
+        if (events.size() == 1) {
+            return outboxRepository.save(OutboxEvent.from(events.getFirst())).then();
+        }
+        return outboxRepository.insertAll(events.stream()
+                .map(OutboxEvent::from)
+                .toList());
+    }
+}
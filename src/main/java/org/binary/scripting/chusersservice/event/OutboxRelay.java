@@ -0,0 +1,157 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the {@code outbox} table to the user-events topic in id order. Each batch is claimed in a short
+ * transaction, published with no transaction open, and deleted by id once Kafka has acknowledged it. A full
+ * batch is followed immediately by the next one, so a backlog is worked off at batch throughput rather than
+ * one batch per interval.
+ * <p>
+ * Claims are taken under an advisory lock and only while the head of the outbox isn't claimed by another
+ * replica, so a single batch is in flight at a time and events for the same user stay in commit order on the
+ * topic. A claim left by a replica that died expires after {@code claim-timeout}, which has to exceed the
+ * producer's {@code delivery.timeout.ms}; the batch is then published again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnProperty(name = UserEventDelivery.MODE_PROPERTY, havingValue = "outbox", matchIfMissing = true)
+public class OutboxRelay {
+
+    static final long RELAY_LOCK_KEY = 0x75736572_6f757462L;
+
+    private final OutboxRepository outboxRepository;
+    private final UserEventPublisher userEventPublisher;
+    private final TransactionalOperator transactionalOperator;
+    private final int batchSize;
+    private final Duration claimTimeout;
+
+    private final Counter relayedEvents;
+    private final DistributionSummary batchSizes;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       UserEventPublisher userEventPublisher,
+                       TransactionalOperator transactionalOperator,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.claim-timeout:5m}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.userEventPublisher = userEventPublisher;
+        this.transactionalOperator = transactionalOperator;
+        this.batchSize = batchSize;
+        this.claimTimeout = claimTimeout;
+        this.relayedEvents = Counter.builder("user.outbox.relayed")
+                .description("User events relayed from the outbox to Kafka")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("user.outbox.relay.batch.size")
+                .description("Events per relayed outbox batch")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.relay.batch")
+                .description("Time to read, publish and delete one outbox batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("user.outbox.lag", lagMillis, millis -> millis.get() / 1000.0)
+                .description("Age of the oldest unrelayed outbox event, as of this replica's last relay tick")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Every replica runs this: the one that gets a claim relays, and all of them refresh the lag gauge.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:500}")
+    public Mono<Void> relay() {
+        return relayBatch()
+                .expand(relayed -> relayed == batchSize ? relayBatch() : Mono.empty())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Outbox relay pass failed, will retry on next tick", error);
+                    return Mono.empty();
+                })
+                .then(updateLag());
+    }
+
+    Mono<Integer> relayBatch() {
+        Timer.Sample sample = Timer.start();
+        return claimBatch()
+                .flatMap(this::publishAndDelete)
+                .defaultIfEmpty(0)
+                .doOnSuccess(relayed -> {
+                    if (relayed > 0) {
+                        sample.stop(batchTimer);
+                        batchSizes.record(relayed);
+                        relayedEvents.increment(relayed);
+                    }
+                });
+    }
+
+    /**
+     * The oldest events, now claimed by this replica. Empty if another replica holds the lock or a live claim.
+     */
+    private Mono<List<OutboxEvent>> claimBatch() {
+        return outboxRepository.tryAdvisoryXactLock(RELAY_LOCK_KEY)
+                .filter(Boolean::booleanValue)
+                .flatMap(locked -> outboxRepository.findOldest(batchSize).collectList())
+                // Claims always cover the head of the outbox, so its first row shows whether one is live
+                .filter(batch -> !batch.isEmpty() && !claimed(batch.getFirst()))
+                .flatMap(batch -> outboxRepository.claim(ids(batch), Instant.now().plus(claimTimeout))
+                        .thenReturn(batch))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Integer> publishAndDelete(List<OutboxEvent> batch) {
+        List<UserEvent> events = batch.stream()
+                .map(OutboxEvent::toUserEvent)
+                .toList();
+        List<Long> ids = ids(batch);
+        return userEventPublisher.publishAll(events)
+                // Let the next tick retry instead of waiting for the claim to expire
+                .onErrorResume(error -> outboxRepository.releaseClaim(ids).then(Mono.error(error)))
+                .then(outboxRepository.deleteAllById(ids))
+                .thenReturn(batch.size());
+    }
+
+    private Mono<Void> updateLag() {
+        return outboxRepository.findOldest(1)
+                .next()
+                .map(oldest -> Duration.between(oldest.getOccurredAt(), Instant.now()).toMillis())
+                .defaultIfEmpty(0L)
+                .doOnNext(lagMillis::set)
+                .then()
+                .onErrorResume(error -> {
+                    log.debug("Could not read the outbox lag", error);
+                    return Mono.empty();
+                });
+    }
+
+    private static boolean claimed(OutboxEvent event) {
+        return event.getClaimedUntil() != null && event.getClaimedUntil().isAfter(Instant.now());
+    }
+
+    private static List<Long> ids(List<OutboxEvent> batch) {
+        return batch.stream()
+                .map(OutboxEvent::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,128 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Appends events to a local {@link UserEventJournal} once the caller's transaction commits and replays
+ * the journal to Kafka in order. Writes never wait on the broker, and events written while it is down
+ * are delivered once it is back.
+ * <p>
+ * The journal is only as durable as its directory, which has to be set explicitly and should be a volume
+ * that outlives the pod; see {@link UserEventJournal} for what survives a crash with and without {@code sync}.
+ * Appends and checkpoints run on a dedicated journal thread, so a disk flush never blocks the event loop that
+ * completed the commit; the request still only completes once its events are in the journal.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = UserEventDelivery.MODE_PROPERTY, havingValue = "spooled")
+public class SpooledEventDelivery implements UserEventDelivery {
+
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final UserEventJournal journal;
+    private final Scheduler journalScheduler = Schedulers.newSingle("user-events-journal", true);
+    private final UserEventPublisher userEventPublisher;
+    private final int batchSize;
+
+    private final Counter appendedEvents;
+    private final Counter replayedEvents;
+    private final Counter droppedEvents;
+
+    public SpooledEventDelivery(UserEventPublisher userEventPublisher,
+                                JsonMapper jsonMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.events.spool.directory:}") String directory,
+                                @Value("${app.events.spool.segment-size:64MB}") DataSize segmentSize,
+                                @Value("${app.events.spool.batch-size:500}") int batchSize,
+                                @Value("${app.events.spool.sync:false}") boolean sync) throws IOException {
+        if (directory.isBlank()) {
+            // A temp directory would quietly lose every undelivered event with the container
+            throw new IllegalStateException("app.events.spool.directory (EVENTS_SPOOL_DIR) must point at a persistent "
+                    + "volume when " + UserEventDelivery.MODE_PROPERTY + "=spooled");
+        }
+        this.journal = new UserEventJournal(Path.of(directory), Math.toIntExact(segmentSize.toBytes()), jsonMapper, sync);
+        this.userEventPublisher = userEventPublisher;
+        this.batchSize = batchSize;
+        this.appendedEvents = Counter.builder("user.events.spool.appended")
+                .description("User events appended to the local journal")
+                .register(meterRegistry);
+        this.replayedEvents = Counter.builder("user.events.spool.replayed")
+                .description("User events replayed from the local journal to Kafka")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("user.events.dropped")
+                .description("User events that could not be published after their write committed")
+                .register(meterRegistry);
+        Gauge.builder("user.events.spool.depth", journal, UserEventJournal::depth)
+                .description("User events in the local journal waiting to be replayed")
+                .register(meterRegistry);
+        Gauge.builder("user.events.spool.segments", journal, UserEventJournal::segments)
+                .description("Journal segment files on disk")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> deliver(List<UserEvent> events) {
+        return AfterCommit.runAndAwait(() -> Mono.<Void>fromRunnable(() -> {
+            try {
+                journal.append(events);
+                appendedEvents.increment(events.size());
+            } catch (RuntimeException e) {
+                // The write has already committed; failing the request now would only invite a retry
+                log.error("Dropping {} user events that could not be spooled", events.size(), e);
+                droppedEvents.increment(events.size());
+            }
+        }).subscribeOn(journalScheduler));
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.spool.replay-interval-ms:500}")
+    public Mono<Void> replay() {
+        return replayBatch()
+                .expand(replayed -> replayed == batchSize ? replayBatch() : Mono.empty())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Journal replay pass failed, will retry on next tick", error);
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Integer> replayBatch() {
+        return Mono.defer(() -> {
+            UserEventJournal.Batch batch = journal.peek(batchSize);
+            if (batch.events().isEmpty()) {
+                return Mono.just(0);
+            }
+            return userEventPublisher.publishAll(batch.events())
+                    .then(Mono.fromRunnable(() -> journal.advance(batch)).subscribeOn(journalScheduler))
+                    .thenReturn(batch.events().size())
+                    .doOnSuccess(replayedEvents::increment);
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        // Let appends already handed to the journal thread finish before closing the segments under them
+        journalScheduler.disposeGracefully()
+                .timeout(CLOSE_TIMEOUT)
+                .onErrorComplete()
+                .block();
+        journal.close();
+    }
+}
@@ -0,0 +1,25 @@
+package org.binary.scripting.chusersservice.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Publishes inside the caller's transaction and waits for the broker's ack, so a write only commits
+ * once its events are on the topic. Response latency includes the Kafka round trip.
+ */
+@Component
+@ConditionalOnProperty(name = UserEventDelivery.MODE_PROPERTY, havingValue = "sync-ack")
+@RequiredArgsConstructor
+public class SyncAckEventDelivery implements UserEventDelivery {
+
+    private final UserEventPublisher userEventPublisher;
+
+    @Override
+    public Mono<Void> deliver(List<UserEvent> events) {
+        return userEventPublisher.publishAll(events);
+    }
+}
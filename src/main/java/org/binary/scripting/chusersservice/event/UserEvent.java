@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.binary.scripting.chusersservice.entity.User;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -18,6 +19,33 @@ public class UserEvent {
     private Instant timestamp;
     private UserPayload payload;
 
+    public static UserEvent of(EventType eventType, User user) {
+        return UserEvent.builder()
+                .eventId(UUID.randomUUID())
+                .eventType(eventType)
+                .timestamp(Instant.now())
+                .payload(UserPayload.builder()
+                        .userId(user.getId())
+                        .username(user.getUsername())
+                        .email(user.getEmail())
+                        .firstName(user.getFirstName())
+                        .lastName(user.getLastName())
+                        .mobileNumber(user.getMobileNumber())
+                        .build())
+                .build();
+    }
+
+    public static UserEvent deleted(UUID userId) {
+        return UserEvent.builder()
+                .eventId(UUID.randomUUID())
+                .eventType(EventType.USER_DELETED)
+                .timestamp(Instant.now())
+                .payload(UserPayload.builder()
+                        .userId(userId)
+                        .build())
+                .build();
+    }
+
     public enum EventType {
         USER_CREATED,
         USER_UPDATED,
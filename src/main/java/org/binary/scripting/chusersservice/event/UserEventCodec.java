@@ -0,0 +1,157 @@
+package org.binary.scripting.chusersservice.event;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Compact binary form of {@link UserEvent}. Layout, version 1:
+ * <pre>
+ * byte     version
+ * byte     event type (1 created, 2 updated, 3 deleted)
+ * uuid     eventId
+ * byte     timestamp present, then varlong seconds and varlong nanos
+ * uuid     payload.userId
+ * string   username, email, firstName, lastName, mobileNumber
+ * </pre>
+ * A uuid is a presence byte followed by two big-endian longs; a string is a varint of its UTF-8 length
+ * plus one (zero for null) followed by the bytes. A missing payload is written as a payload of nulls.
+ */
+public final class UserEventCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.ch.user-event.v1+binary";
+
+    static final byte VERSION = 1;
+
+    private UserEventCodec() {
+    }
+
+    public static byte[] encode(UserEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+        out.write(VERSION);
+        out.write(typeCode(event.getEventType()));
+        writeUuid(out, event.getEventId());
+        Instant timestamp = event.getTimestamp();
+        out.write(timestamp != null ? 1 : 0);
+        if (timestamp != null) {
+            writeVarLong(out, timestamp.getEpochSecond());
+            writeVarLong(out, timestamp.getNano());
+        }
+        UserEvent.UserPayload payload = event.getPayload() != null ? event.getPayload() : new UserEvent.UserPayload();
+        writeUuid(out, payload.getUserId());
+        writeString(out, payload.getUsername());
+        writeString(out, payload.getEmail());
+        writeString(out, payload.getFirstName());
+        writeString(out, payload.getLastName());
+        writeString(out, payload.getMobileNumber());
+        return out.toByteArray();
+    }
+
+    public static UserEvent decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported user event encoding version " + version);
+        }
+        UserEvent.EventType eventType = eventType(in.get());
+        UUID eventId = readUuid(in);
+        Instant timestamp = in.get() != 0 ? Instant.ofEpochSecond(readVarLong(in), readVarLong(in)) : null;
+        return UserEvent.builder()
+                .eventType(eventType)
+                .eventId(eventId)
+                .timestamp(timestamp)
+                .payload(UserEvent.UserPayload.builder()
+                        .userId(readUuid(in))
+                        .username(readString(in))
+                        .email(readString(in))
+                        .firstName(readString(in))
+                        .lastName(readString(in))
+                        .mobileNumber(readString(in))
+                        .build())
+                .build();
+    }
+
+    private static int typeCode(UserEvent.EventType eventType) {
+        if (eventType == null) {
+            return 0;
+        }
+        return switch (eventType) {
+            case USER_CREATED -> 1;
+            case USER_UPDATED -> 2;
+            case USER_DELETED -> 3;
+        };
+    }
+
+    private static UserEvent.EventType eventType(byte code) {
+        return switch (code) {
+            case 0 -> null;
+            case 1 -> UserEvent.EventType.USER_CREATED;
+            case 2 -> UserEvent.EventType.USER_UPDATED;
+            case 3 -> UserEvent.EventType.USER_DELETED;
+            default -> throw new IllegalArgumentException("Unknown user event type code " + code);
+        };
+    }
+
+    private static void writeUuid(ByteArrayOutputStream out, UUID uuid) {
+        out.write(uuid != null ? 1 : 0);
+        if (uuid != null) {
+            writeLong(out, uuid.getMostSignificantBits());
+            writeLong(out, uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return in.get() != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Math.toIntExact(readVarLong(in)) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Unsigned LEB128 of the 64-bit value, so small non-negative numbers take one or two bytes.
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,21 @@
+package org.binary.scripting.chusersservice.event;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * How user events leave the service, chosen with {@code app.events.delivery-mode}:
+ * <ul>
+ *     <li>{@code outbox} (default) - written to the outbox table in the caller's transaction and relayed by {@link OutboxRelay}</li>
+ *     <li>{@code sync-ack} - published inside the transaction; the write fails and rolls back unless Kafka acknowledges</li>
+ *     <li>{@code async-after-commit} - published once the transaction commits, without holding the response</li>
+ *     <li>{@code spooled} - appended to a local journal once the transaction commits and replayed to Kafka in order</li>
+ * </ul>
+ */
+public interface UserEventDelivery {
+
+    String MODE_PROPERTY = "app.events.delivery-mode";
+
+    Mono<Void> deliver(List<UserEvent> events);
+}
@@ -0,0 +1,48 @@
+package org.binary.scripting.chusersservice.event;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reads user events written by {@link UserEventSerializer} in either format, going by the record's
+ * {@value UserEventSerializer#CONTENT_TYPE_HEADER} header. Records without the header are treated as JSON.
+ */
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    private static final byte[] BINARY_CONTENT_TYPE = UserEventCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8);
+
+    private final JacksonJsonDeserializer<UserEvent> json = new JacksonJsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header contentType = headers.lastHeader(UserEventSerializer.CONTENT_TYPE_HEADER);
+        if (contentType != null && Arrays.equals(contentType.value(), BINARY_CONTENT_TYPE)) {
+            return UserEventCodec.decode(data);
+        }
+        return json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
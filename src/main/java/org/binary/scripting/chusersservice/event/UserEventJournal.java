@@ -0,0 +1,284 @@
+package org.binary.scripting.chusersservice.event;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of user events kept in memory-mapped segment files of a fixed size. Each record is
+ * {@code [int length][int crc32][JSON]}; a zero length or a bad checksum marks the end of a segment's data,
+ * so a record torn by a crash is dropped on reopen. The read position is kept in a small mapped checkpoint
+ * file and segments behind it are deleted.
+ * <p>
+ * Once {@link #append} returns, records are in the page cache, so they survive the JVM crashing or being
+ * killed, but not the node itself going down: by default a segment is only forced to disk when it is rotated
+ * or the journal is closed, and the checkpoint only on close. With {@code sync} each append forces the range
+ * it wrote and each advance forces the checkpoint, at the cost of a disk flush per committed write.
+ * <p>
+ * Forcing happens after the monitor is released, so a flush never holds up {@link #peek}; {@link #append} and
+ * {@link #advance} are meant to be called from one journal thread, not a request or I/O thread.
+ */
+@Slf4j
+final class UserEventJournal implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKPOINT_BYTES = 12;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    record Position(long segment, int offset) {
+    }
+
+    record Batch(List<UserEvent> events, Position end) {
+    }
+
+    private record Unforced(MappedByteBuffer buffer, int from, int to) {
+
+        void force() {
+            if (to > from) {
+                buffer.force(from, to - from);
+            }
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final JsonMapper jsonMapper;
+    private final boolean sync;
+    private final MappedByteBuffer checkpoint;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writeOffset;
+
+    private Position readPosition;
+    private long readSegment = -1;
+    private ByteBuffer readBuffer;
+
+    private long depth;
+
+    UserEventJournal(Path directory, int segmentSize, JsonMapper jsonMapper, boolean sync) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.jsonMapper = jsonMapper;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        this.checkpoint = map(directory.resolve("checkpoint"), CHECKPOINT_BYTES);
+
+        List<Long> segments = listSegments();
+        long firstSegment = segments.isEmpty() ? 0 : segments.getFirst();
+        writeSegment = segments.isEmpty() ? 0 : segments.getLast();
+        writeBuffer = map(segmentPath(writeSegment), segmentSize);
+        writeOffset = endOfData(writeBuffer);
+
+        Position saved = new Position(checkpoint.getLong(0), checkpoint.getInt(8));
+        readPosition = saved.segment() < firstSegment ? new Position(firstSegment, 0) : saved;
+        depth = countFrom(readPosition);
+        if (depth > 0) {
+            log.info("Reopened user event journal in {} with {} events to replay", directory, depth);
+        }
+    }
+
+    void append(List<UserEvent> events) {
+        write(events).forEach(Unforced::force);
+    }
+
+    /**
+     * Writes the records and returns the ranges that still have to be forced.
+     */
+    private synchronized List<Unforced> write(List<UserEvent> events) {
+        List<Unforced> unforced = new ArrayList<>(2);
+        int unforcedFrom = writeOffset;
+        for (UserEvent event : events) {
+            byte[] payload = jsonMapper.writeValueAsBytes(event);
+            int recordBytes = HEADER_BYTES + payload.length;
+            if (recordBytes > segmentSize) {
+                throw new IllegalArgumentException("Event of " + payload.length + " bytes does not fit in a journal segment");
+            }
+            if (writeOffset + recordBytes > writeBuffer.capacity()) {
+                unforced.add(new Unforced(writeBuffer, 0, writeOffset));
+                rotate();
+                unforcedFrom = 0;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            writeBuffer.put(writeOffset + HEADER_BYTES, payload);
+            writeBuffer.putInt(writeOffset + 4, (int) crc.getValue());
+            // Length last: until it is set the slot still reads as end of data
+            writeBuffer.putInt(writeOffset, payload.length);
+            writeOffset += recordBytes;
+            depth++;
+        }
+        if (sync) {
+            unforced.add(new Unforced(writeBuffer, unforcedFrom, writeOffset));
+        }
+        return unforced;
+    }
+
+    /**
+     * Reads up to {@code max} events from the read position without consuming them.
+     */
+    synchronized Batch peek(int max) {
+        List<UserEvent> events = new ArrayList<>();
+        long segment = readPosition.segment();
+        int offset = readPosition.offset();
+        while (events.size() < max) {
+            byte[] payload = segment == writeSegment
+                    ? (offset < writeOffset ? recordAt(writeBuffer, offset) : null)
+                    : recordAt(readBuffer(segment), offset);
+            if (payload == null) {
+                if (segment == writeSegment) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+            events.add(jsonMapper.readValue(payload, UserEvent.class));
+            offset += HEADER_BYTES + payload.length;
+        }
+        return new Batch(events, new Position(segment, offset));
+    }
+
+    /**
+     * Consumes a batch returned by {@link #peek}, deleting the segments it finished.
+     */
+    void advance(Batch batch) {
+        consume(batch);
+        if (sync) {
+            checkpoint.force();
+        }
+    }
+
+    private synchronized void consume(Batch batch) {
+        Position end = batch.end();
+        checkpoint.putLong(0, end.segment()).putInt(8, end.offset());
+        for (long segment = readPosition.segment(); segment < end.segment(); segment++) {
+            try {
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                log.warn("Could not delete replayed journal segment {}", segment, e);
+            }
+        }
+        if (readSegment < end.segment()) {
+            readSegment = -1;
+            readBuffer = null;
+        }
+        readPosition = end;
+        depth -= batch.events().size();
+    }
+
+    synchronized long depth() {
+        return depth;
+    }
+
+    synchronized long segments() {
+        return writeSegment - readPosition.segment() + 1;
+    }
+
+    @Override
+    public synchronized void close() {
+        writeBuffer.force();
+        checkpoint.force();
+    }
+
+    private void rotate() {
+        writeSegment++;
+        writeBuffer = map(segmentPath(writeSegment), segmentSize);
+        writeOffset = 0;
+        log.debug("Rotated user event journal to segment {}", writeSegment);
+    }
+
+    private ByteBuffer readBuffer(long segment) {
+        if (readSegment != segment) {
+            readBuffer = map(segmentPath(segment), segmentSize);
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private long countFrom(Position position) {
+        long count = 0;
+        long segment = position.segment();
+        int offset = position.offset();
+        while (true) {
+            ByteBuffer buffer = segment == writeSegment ? writeBuffer : readBuffer(segment);
+            int end = segment == writeSegment ? writeOffset : buffer.capacity();
+            byte[] payload = offset < end ? recordAt(buffer, offset) : null;
+            if (payload != null) {
+                count++;
+                offset += HEADER_BYTES + payload.length;
+            } else if (segment == writeSegment) {
+                return count;
+            } else {
+                segment++;
+                offset = 0;
+            }
+        }
+    }
+
+    private static int endOfData(ByteBuffer buffer) {
+        int offset = 0;
+        byte[] payload;
+        while ((payload = recordAt(buffer, offset)) != null) {
+            offset += HEADER_BYTES + payload.length;
+        }
+        return offset;
+    }
+
+    /**
+     * The payload of the record at {@code offset}, or null when there is no complete record there.
+     */
+    private static byte[] recordAt(ByteBuffer buffer, int offset) {
+        if (offset + HEADER_BYTES > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_BYTES + length > buffer.capacity()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? payload : null;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve("%020d%s".formatted(segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Maps a whole file, creating it at {@code size} bytes if missing. Existing files keep their own size.
+     */
+    private static MappedByteBuffer map(Path path, int size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = channel.size() > 0 ? channel.size() : size;
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal file " + path, e);
+        }
+    }
+}
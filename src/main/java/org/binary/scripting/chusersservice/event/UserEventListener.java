@@ -0,0 +1,80 @@
+package org.binary.scripting.chusersservice.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
+import org.binary.scripting.chusersservice.service.UserAvailabilityFilter;
+import org.binary.scripting.chusersservice.service.UserCache;
+import org.binary.scripting.chusersservice.service.UserSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consumes user-events so every replica drops cached users and updates its search index and availability
+ * filter for changes made by any replica. Each instance joins its own consumer group and therefore sees every partition.
+ * <p>
+ * The search index and availability filter are built from a snapshot taken once the application is ready, while
+ * partitions are assigned some time later. So that a write made on another replica in between isn't missed, each
+ * partition is first read from {@code replay-margin} before this bean was created, which is before any snapshot
+ * started. Replayed events only repeat what the snapshot already holds, and per user they arrive in order.
+ */
+@Slf4j
+@Component
+public class UserEventListener implements ConsumerSeekAware {
+
+    private final UserCache userCache;
+    private final UserSearchIndex userSearchIndex;
+    private final UserAvailabilityFilter userAvailabilityFilter;
+    private final long replayFrom;
+    private final Set<TopicPartition> replayed = ConcurrentHashMap.newKeySet();
+
+    public UserEventListener(UserCache userCache,
+                             UserSearchIndex userSearchIndex,
+                             UserAvailabilityFilter userAvailabilityFilter,
+                             @Value("${app.users.cache.invalidation.replay-margin:1m}") Duration replayMargin) {
+        this.userCache = userCache;
+        this.userSearchIndex = userSearchIndex;
+        this.userAvailabilityFilter = userAvailabilityFilter;
+        // The margin also covers skew between this clock and the producers' record timestamps
+        this.replayFrom = System.currentTimeMillis() - replayMargin.toMillis();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Only on first assignment; after a rebalance the committed position is already past the snapshot
+        List<TopicPartition> first = assignments.keySet().stream().filter(replayed::add).toList();
+        if (!first.isEmpty()) {
+            log.debug("Replaying user events from {} on {}", replayFrom, first);
+            callback.seekToTimestamp(first, replayFrom);
+        }
+    }
+
+    @KafkaListener(
+            id = "user-events-invalidation",
+            topics = "${app.kafka.topics.user-events}",
+            groupId = "${spring.application.name}-${random.uuid}",
+            autoStartup = "${app.users.cache.invalidation.enabled:true}")
+    public void onUserEvent(UserEvent event) {
+        if (event == null || event.getPayload() == null || event.getPayload().getUserId() == null) {
+            return;
+        }
+        log.debug("Received {} event for userId: {}", event.getEventType(), event.getPayload().getUserId());
+        UserEvent.UserPayload payload = event.getPayload();
+        userCache.evict(payload.getUserId());
+        if (event.getEventType() == UserEvent.EventType.USER_DELETED) {
+            userSearchIndex.remove(payload.getUserId());
+        } else if (event.getEventType() != null) {
+            userAvailabilityFilter.add(payload.getUsername(), payload.getEmail());
+            userSearchIndex.index(new UserSuggestion(payload.getUserId(), payload.getUsername(), payload.getEmail(),
+                    payload.getFirstName(), payload.getLastName()));
+        }
+    }
+}
@@ -1,71 +1,127 @@
 package org.binary.scripting.chusersservice.event;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.binary.scripting.chusersservice.entity.User;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class UserEventPublisher {
 
     private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final String userEventsTopic;
+    private final int maxInFlight;
+    private final boolean prefetchMetadata;
+    private final Timer sendSucceeded;
+    private final Timer sendFailed;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Shared by every publishAll call, so max-in-flight bounds the whole producer rather than one batch
+    private final Semaphore sendPermits;
+    // One thread, so records reach the producer in the order they were published
+    private final Scheduler sendScheduler = Schedulers.newBoundedElastic(
+            1, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "user-events-send", 60, true);
 
-    @Value("${app.kafka.topics.user-events}")
-    private String userEventsTopic;
-
-    public Mono<User> publishUserCreated(User user) {
-        return publishEvent(user, UserEvent.EventType.USER_CREATED);
+    public UserEventPublisher(KafkaTemplate<String, UserEvent> kafkaTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.kafka.topics.user-events}") String userEventsTopic,
+                              @Value("${app.kafka.producer.max-in-flight:1000}") int maxInFlight,
+                              @Value("${app.kafka.producer.prefetch-metadata:true}") boolean prefetchMetadata) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.userEventsTopic = userEventsTopic;
+        this.maxInFlight = maxInFlight;
+        this.sendPermits = new Semaphore(maxInFlight);
+        this.prefetchMetadata = prefetchMetadata;
+        this.sendSucceeded = sendTimer(meterRegistry, "success");
+        this.sendFailed = sendTimer(meterRegistry, "failure");
+        Gauge.builder("user.events.send.inflight", inFlight, AtomicInteger::get)
+                .description("User events handed to the producer and not yet acknowledged")
+                .register(meterRegistry);
     }
 
-    public Mono<User> publishUserUpdated(User user) {
-        return publishEvent(user, UserEvent.EventType.USER_UPDATED);
+    private static Timer sendTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("user.events.send")
+                .description("Time from handing a user event to the producer until the broker acknowledged it")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public Mono<Void> publishUserDeleted(UUID userId) {
-        UserEvent event = UserEvent.builder()
-                .eventId(UUID.randomUUID())
-                .eventType(UserEvent.EventType.USER_DELETED)
-                .timestamp(Instant.now())
-                .payload(UserEvent.UserPayload.builder()
-                        .userId(userId)
-                        .build())
-                .build();
+    /**
+     * {@code send} only blocks while the producer waits for topic metadata, so fetch it once off the
+     * request path instead of letting the first publish stall the thread it runs on.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchMetadata() {
+        if (!prefetchMetadata) {
+            return;
+        }
+        Mono.fromRunnable(() -> kafkaTemplate.partitionsFor(userEventsTopic))
+                .subscribeOn(sendScheduler)
+                .subscribe(
+                        null,
+                        error -> log.warn("Could not fetch metadata for topic {}", userEventsTopic, error),
+                        () -> log.debug("Fetched metadata for topic {}", userEventsTopic));
+    }
 
-        return Mono.fromFuture(kafkaTemplate.send(userEventsTopic, userId.toString(), event))
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnSuccess(result -> log.info("Published USER_DELETED event for userId: {}", userId))
-                .doOnError(error -> log.error("Failed to publish USER_DELETED event for userId: {}", userId, error))
-                .then();
+    /**
+     * Hands the batch to the producer in order and completes once every record is acknowledged. {@code send}
+     * can block on metadata or a full buffer, so it runs on a dedicated thread rather than the caller's event
+     * loop or the producer thread completing earlier sends. At most {@code max-in-flight} records, across all
+     * callers, are awaiting acknowledgement at a time: the send thread waits for a permit before handing over the
+     * next record, so callers queue behind a slow broker instead of piling more records onto the producer.
+     */
+    public Mono<Void> publishAll(List<UserEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(events)
+                .flatMap(this::send, maxInFlight)
+                .then()
+                .doOnSuccess(result -> log.debug("Published {} user events", events.size()))
+                .doOnError(error -> log.error("Failed to publish batch of {} user events", events.size(), error));
     }
 
-    private Mono<User> publishEvent(User user, UserEvent.EventType eventType) {
-        UserEvent event = UserEvent.builder()
-                .eventId(UUID.randomUUID())
-                .eventType(eventType)
-                .timestamp(Instant.now())
-                .payload(UserEvent.UserPayload.builder()
-                        .userId(user.getId())
-                        .username(user.getUsername())
-                        .email(user.getEmail())
-                        .firstName(user.getFirstName())
-                        .lastName(user.getLastName())
-                        .mobileNumber(user.getMobileNumber())
-                        .build())
-                .build();
+    private Mono<Void> send(UserEvent event) {
+        return Mono.defer(() -> {
+            // Released from the producer thread as acknowledgements arrive, never from the waiting send thread.
+            // Cancelling a waiting caller interrupts the wait, so it doesn't send once a permit frees up.
+            try {
+                sendPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Mono.error(e);
+            }
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            return Mono.fromFuture(() -> kafkaTemplate.send(userEventsTopic, event.getPayload().getUserId().toString(), event))
+                    .doOnSuccess(result -> sendSucceeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> sendFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doFinally(signal -> {
+                        inFlight.decrementAndGet();
+                        sendPermits.release();
+                    })
+                    .then();
+        }).subscribeOn(sendScheduler);
+    }
 
-        return Mono.fromFuture(kafkaTemplate.send(userEventsTopic, user.getId().toString(), event))
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnSuccess(result -> log.info("Published {} event for userId: {}", eventType, user.getId()))
-                .doOnError(error -> log.error("Failed to publish {} event for userId: {}", eventType, user.getId(), error))
-                .thenReturn(user);
+    @PreDestroy
+    public void close() {
+        sendScheduler.dispose();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package org.binary.scripting.chusersservice.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.entity.User;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Turns user changes into {@link UserEvent}s and hands them to the configured {@link UserEventDelivery}.
+ * Callers are expected to run inside the transaction that changes {@code users}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserEventRecorder {
+
+    private final UserEventDelivery userEventDelivery;
+
+    public Mono<User> userCreated(User user) {
+        return record(UserEvent.of(UserEvent.EventType.USER_CREATED, user))
+                .thenReturn(user);
+    }
+
+    public Mono<User> userUpdated(User user) {
+        return record(UserEvent.of(UserEvent.EventType.USER_UPDATED, user))
+                .thenReturn(user);
+    }
+
+    public Mono<Void> userDeleted(UUID userId) {
+        return record(UserEvent.deleted(userId));
+    }
+
+    public Mono<Void> usersCreated(List<User> users) {
+        return recordAll(users, UserEvent.EventType.USER_CREATED);
+    }
+
+    public Mono<Void> usersUpdated(List<User> users) {
+        return recordAll(users, UserEvent.EventType.USER_UPDATED);
+    }
+
+    private Mono<Void> recordAll(List<User> users, UserEvent.EventType eventType) {
+        List<UserEvent> events = users.stream()
+                .map(user -> UserEvent.of(eventType, user))
+                .toList();
+        return userEventDelivery.deliver(events)
+                .doOnSuccess(done -> log.debug("Recorded {} {} events", events.size(), eventType));
+    }
+
+    private Mono<Void> record(UserEvent event) {
+        return userEventDelivery.deliver(List.of(event))
+                .doOnSuccess(done -> log.debug("Recorded {} event for userId: {}", event.getEventType(), event.getPayload().getUserId()));
+    }
+}
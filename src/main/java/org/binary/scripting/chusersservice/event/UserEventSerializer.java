@@ -0,0 +1,53 @@
+package org.binary.scripting.chusersservice.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes user events as JSON or with {@link UserEventCodec}, chosen by the {@value #FORMAT_CONFIG} producer
+ * property, and labels each record with a {@value #CONTENT_TYPE_HEADER} header so consumers using
+ * {@link UserEventDeserializer} can read both while producers migrate.
+ */
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    public static final String FORMAT_CONFIG = "user-event.format";
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    static final String JSON_CONTENT_TYPE = "application/json";
+
+    private final JacksonJsonSerializer<UserEvent> json = new JacksonJsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, UserEvent data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, UserEvent data) {
+        if (data == null) {
+            return null;
+        }
+        headers.remove(CONTENT_TYPE_HEADER);
+        if (binary) {
+            headers.add(CONTENT_TYPE_HEADER, UserEventCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+            return UserEventCodec.encode(data);
+        }
+        headers.add(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,41 @@
+package org.binary.scripting.chusersservice.repository;
+
+import io.r2dbc.spi.Parameters;
+
+/**
+ * Helpers for building one {@code VALUES (...), (...)} statement out of many rows so a batch costs
+ * a single round trip. Each placeholder carries an explicit cast so {@code NULL}s type-check in any row.
+ */
+final class MultiRowValues {
+
+    /**
+     * Postgres caps a statement at 65535 bind parameters; stay well below it for wide rows.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private MultiRowValues() {
+    }
+
+    static StringBuilder append(StringBuilder sql, int rows, String... columnTypes) {
+        int parameter = 1;
+        for (int row = 0; row < rows; row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < columnTypes.length; column++) {
+                if (column > 0) {
+                    sql.append(", ");
+                }
+                sql.append('$').append(parameter++).append("::").append(columnTypes[column]);
+            }
+            sql.append(')');
+        }
+        return sql;
+    }
+
+    /**
+     * Turns {@code null} into a typed null parameter so the whole row can go through one
+     * {@code bindValues} call rather than a {@code bind}/{@code bindNull} copy per placeholder.
+     */
+    static Object value(Object value, Class<?> type) {
+        return value != null ? value : Parameters.in(type);
+    }
+}
@@ -0,0 +1,31 @@
+package org.binary.scripting.chusersservice.repository;
+
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface OutboxRepository extends ReactiveCrudRepository<OutboxEvent, Long>, OutboxRepositoryCustom {
+
+    @Query("SELECT * FROM outbox ORDER BY id LIMIT :limit")
+    Flux<OutboxEvent> findOldest(int limit);
+
+    /**
+     * Takes a transaction-scoped advisory lock so only one replica claims a batch at a time.
+     */
+    @Query("SELECT pg_try_advisory_xact_lock(:key)")
+    Mono<Boolean> tryAdvisoryXactLock(long key);
+
+    @Modifying
+    @Query("UPDATE outbox SET claimed_until = :until WHERE id IN (:ids)")
+    Mono<Integer> claim(Collection<Long> ids, Instant until);
+
+    @Modifying
+    @Query("UPDATE outbox SET claimed_until = NULL WHERE id IN (:ids)")
+    Mono<Integer> releaseClaim(Collection<Long> ids);
+}
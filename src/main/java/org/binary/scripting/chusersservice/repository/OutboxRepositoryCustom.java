@@ -0,0 +1,14 @@
+package org.binary.scripting.chusersservice.repository;
+
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface OutboxRepositoryCustom {
+
+    /**
+     * Records many events with one multi-row {@code INSERT} per chunk instead of a round trip each.
+     */
+    Mono<Void> insertAll(List<OutboxEvent> events);
+}
@@ -0,0 +1,51 @@
+package org.binary.scripting.chusersservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class OutboxRepositoryCustomImpl implements OutboxRepositoryCustom {
+
+    private static final String[] COLUMN_TYPES =
+            {"uuid", "varchar", "uuid", "varchar", "varchar", "varchar", "varchar", "varchar", "timestamptz"};
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Void> insertAll(List<OutboxEvent> events) {
+        return Flux.fromIterable(events)
+                .buffer(MultiRowValues.MAX_ROWS_PER_STATEMENT)
+                .concatMap(this::insertChunk)
+                .then();
+    }
+
+    private Mono<Long> insertChunk(List<OutboxEvent> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO outbox (event_id, event_type, user_id, username, email, "
+                + "first_name, last_name, mobile_number, occurred_at) VALUES ");
+        MultiRowValues.append(sql, chunk.size(), COLUMN_TYPES);
+        List<Object> values = new ArrayList<>(chunk.size() * COLUMN_TYPES.length);
+        for (OutboxEvent event : chunk) {
+            values.add(MultiRowValues.value(event.getEventId(), UUID.class));
+            values.add(MultiRowValues.value(event.getEventType().name(), String.class));
+            values.add(MultiRowValues.value(event.getUserId(), UUID.class));
+            values.add(MultiRowValues.value(event.getUsername(), String.class));
+            values.add(MultiRowValues.value(event.getEmail(), String.class));
+            values.add(MultiRowValues.value(event.getFirstName(), String.class));
+            values.add(MultiRowValues.value(event.getLastName(), String.class));
+            values.add(MultiRowValues.value(event.getMobileNumber(), String.class));
+            values.add(MultiRowValues.value(event.getOccurredAt(), Instant.class));
+        }
+        return databaseClient.sql(sql.toString())
+                .bindValues(values)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -1,12 +1,45 @@
 package org.binary.scripting.chusersservice.repository;
 
+import org.binary.scripting.chusersservice.dto.DailySignups;
 import org.binary.scripting.chusersservice.entity.User;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.UUID;
 
-public interface UserRepository extends ReactiveCrudRepository<User, UUID> {
+public interface UserRepository extends ReactiveCrudRepository<User, UUID>, UserRepositoryCustom {
     Flux<User> findAllBy(Pageable pageable);
+
+    @Query("SELECT * FROM users ORDER BY created_at, id LIMIT :limit")
+    Flux<User> findFirstKeysetPage(int limit);
+
+    @Query("SELECT * FROM users WHERE (created_at, id) > (:createdAt, :id) ORDER BY created_at, id LIMIT :limit")
+    Flux<User> findKeysetPageAfter(Instant createdAt, UUID id, int limit);
+
+    @Query("SELECT * FROM users WHERE id = ANY(:ids)")
+    Flux<User> findAllByIdIn(UUID[] ids);
+
+    // Spelled out rather than derived: IgnoreCase derives UPPER(...), which can't use the lower() unique indexes
+    @Query("SELECT * FROM users WHERE lower(username) = lower(:username)")
+    Mono<User> findByUsernameIgnoreCase(String username);
+
+    @Query("SELECT * FROM users WHERE lower(email) = lower(:email)")
+    Mono<User> findByEmailIgnoreCase(String email);
+
+    // Maintained by ANALYZE and autovacuum; -1 until the table has been analyzed once
+    @Query("SELECT reltuples::bigint FROM pg_class WHERE oid = 'users'::regclass")
+    Mono<Long> estimateCount();
+
+    @Query("SELECT (created_at AT TIME ZONE 'UTC')::date AS day, count(*) AS signups FROM users "
+            + "WHERE created_at >= :since GROUP BY 1")
+    Flux<DailySignups> countSignupsPerDaySince(Instant since);
+
+    @Modifying
+    @Query("DELETE FROM users WHERE id = :id")
+    Mono<Boolean> removeById(UUID id);
 }
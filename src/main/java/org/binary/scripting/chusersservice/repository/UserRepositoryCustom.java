@@ -0,0 +1,77 @@
+package org.binary.scripting.chusersservice.repository;
+
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Queries that need statement-level control the derived/{@code @Query} methods don't expose.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Streams every user in keyset order over a single portal, pulling {@code fetchSize} rows per
+     * round trip as downstream demand allows.
+     */
+    Flux<User> streamAll(int fetchSize);
+
+    /**
+     * Like {@code findAllBy(Pageable)} but reads only the columns of {@code fields}, plus {@code id} and
+     * {@code version}; the other properties of the returned users are {@code null}.
+     */
+    Flux<User> findPageSelecting(Set<UserField> fields, int limit, long offset);
+
+    /**
+     * A keyset page after ({@code createdAt}, {@code id}), or the first page when both are {@code null}, reading
+     * only the columns of {@code fields} plus {@code id}, {@code version} and {@code created_at}.
+     */
+    Flux<User> findKeysetPageSelecting(Set<UserField> fields, Instant createdAt, UUID id, int limit);
+
+    /**
+     * Reads only the columns of {@code fields}, plus {@code id} and {@code version}, of one user.
+     */
+    Mono<User> findByIdSelecting(UUID id, Set<UserField> fields);
+
+    /**
+     * Inserts users with caller-assigned ids using multi-row {@code INSERT ... RETURNING *},
+     * one statement per {@value MultiRowValues#MAX_ROWS_PER_STATEMENT} rows.
+     */
+    Flux<User> insertAll(List<User> users);
+
+    /**
+     * Applies full updates keyed by id from a single {@code UPDATE ... FROM (VALUES ...)} per chunk.
+     * Ids that don't exist are simply absent from the result.
+     */
+    Flux<User> updateAll(List<User> users);
+
+    /**
+     * Overwrites every client-editable column in a single {@code UPDATE ... RETURNING *};
+     * empty if the id doesn't exist.
+     */
+    Mono<User> replaceById(UUID id, User user);
+
+    /**
+     * Like {@link #replaceById} but only if the row's version is one of {@code versions}; empty if the id doesn't
+     * exist or its version has moved on. The check and the write are one statement.
+     */
+    Mono<User> replaceByIdAndVersion(UUID id, User user, Collection<Long> versions);
+
+    /**
+     * Like {@link #replaceById} but only writes the non-null fields of {@code changes}.
+     */
+    Mono<User> patchById(UUID id, User changes);
+
+    /**
+     * Whether {@link #patchById} would change anything, i.e. {@code changes} has a non-null editable field.
+     */
+    static boolean changesAnything(User changes) {
+        return UserRepositoryCustomImpl.changesAnything(changes);
+    }
+}
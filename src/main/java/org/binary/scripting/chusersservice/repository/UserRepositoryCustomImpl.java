@@ -0,0 +1,209 @@
+package org.binary.scripting.chusersservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.entity.User;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String[] INSERT_COLUMN_TYPES =
+            {"uuid", "varchar", "varchar", "varchar", "varchar", "varchar", "varchar", "varchar"};
+    private static final String[] UPDATE_COLUMN_TYPES =
+            {"uuid", "varchar", "varchar", "varchar", "varchar", "varchar", "varchar"};
+
+    /**
+     * Columns a client may write on update, in statement order.
+     */
+    private static final Map<String, Function<User, String>> EDITABLE_COLUMNS = editableColumns();
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<User> streamAll(int fetchSize) {
+        return readAll(template.getDatabaseClient()
+                .sql("SELECT * FROM users ORDER BY created_at, id")
+                .filter(statement -> statement.fetchSize(fetchSize)));
+    }
+
+    @Override
+    public Flux<User> findPageSelecting(Set<UserField> fields, int limit, long offset) {
+        return readAll(template.getDatabaseClient()
+                .sql("SELECT " + selectList(fields) + " FROM users ORDER BY created_at, id LIMIT $1 OFFSET $2")
+                .bind(0, limit)
+                .bind(1, offset));
+    }
+
+    @Override
+    public Flux<User> findKeysetPageSelecting(Set<UserField> fields, Instant createdAt, UUID id, int limit) {
+        Set<UserField> withCursor = EnumSet.of(UserField.CREATED_AT);
+        withCursor.addAll(fields);
+        if (createdAt == null) {
+            return readAll(template.getDatabaseClient()
+                    .sql("SELECT " + selectList(withCursor) + " FROM users ORDER BY created_at, id LIMIT $1")
+                    .bind(0, limit));
+        }
+        return readAll(template.getDatabaseClient()
+                .sql("SELECT " + selectList(withCursor) + " FROM users WHERE (created_at, id) > ($1, $2) "
+                        + "ORDER BY created_at, id LIMIT $3")
+                .bind(0, createdAt)
+                .bind(1, id)
+                .bind(2, limit));
+    }
+
+    @Override
+    public Mono<User> findByIdSelecting(UUID id, Set<UserField> fields) {
+        return readAll(template.getDatabaseClient()
+                .sql("SELECT " + selectList(fields) + " FROM users WHERE id = $1")
+                .bind(0, id))
+                .singleOrEmpty();
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        return Flux.fromIterable(users)
+                .buffer(MultiRowValues.MAX_ROWS_PER_STATEMENT)
+                .concatMap(this::insertChunk);
+    }
+
+    @Override
+    public Flux<User> updateAll(List<User> users) {
+        return Flux.fromIterable(users)
+                .buffer(MultiRowValues.MAX_ROWS_PER_STATEMENT)
+                .concatMap(this::updateChunk);
+    }
+
+    @Override
+    public Mono<User> replaceById(UUID id, User user) {
+        return replaceById(id, user, null);
+    }
+
+    @Override
+    public Mono<User> replaceByIdAndVersion(UUID id, User user, Collection<Long> versions) {
+        return replaceById(id, user, versions.toArray(Long[]::new));
+    }
+
+    @Override
+    public Mono<User> patchById(UUID id, User changes) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        EDITABLE_COLUMNS.forEach((column, getter) -> {
+            String value = getter.apply(changes);
+            if (value != null) {
+                columns.put(column, value);
+            }
+        });
+        return updateColumns(id, columns, null);
+    }
+
+    static boolean changesAnything(User changes) {
+        return EDITABLE_COLUMNS.values().stream().anyMatch(getter -> getter.apply(changes) != null);
+    }
+
+    private Mono<User> replaceById(UUID id, User user, Long[] versions) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        EDITABLE_COLUMNS.forEach((column, getter) -> columns.put(column, getter.apply(user)));
+        return updateColumns(id, columns, versions);
+    }
+
+    private Mono<User> updateColumns(UUID id, Map<String, Object> columns, Long[] versions) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET ");
+        List<Object> values = new ArrayList<>(columns.size() + 1);
+        columns.forEach((column, value) -> {
+            values.add(MultiRowValues.value(value, String.class));
+            sql.append(column).append(" = $").append(values.size()).append(", ");
+        });
+        values.add(id);
+        sql.append("modified_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = $").append(values.size());
+        if (versions != null) {
+            values.add(versions);
+            sql.append(" AND version = ANY($").append(values.size()).append(")");
+        }
+        sql.append(" RETURNING *");
+        return readAll(template.getDatabaseClient().sql(sql.toString()).bindValues(values))
+                .singleOrEmpty();
+    }
+
+    private Flux<User> insertChunk(List<User> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO users "
+                + "(id, username, email, first_name, last_name, mobile_number, created_by, modified_by) VALUES ");
+        MultiRowValues.append(sql, chunk.size(), INSERT_COLUMN_TYPES)
+                .append(" RETURNING *");
+        List<Object> values = new ArrayList<>(chunk.size() * INSERT_COLUMN_TYPES.length);
+        for (User user : chunk) {
+            values.add(MultiRowValues.value(user.getId(), UUID.class));
+            values.add(MultiRowValues.value(user.getUsername(), String.class));
+            values.add(MultiRowValues.value(user.getEmail(), String.class));
+            values.add(MultiRowValues.value(user.getFirstName(), String.class));
+            values.add(MultiRowValues.value(user.getLastName(), String.class));
+            values.add(MultiRowValues.value(user.getMobileNumber(), String.class));
+            values.add(MultiRowValues.value(user.getCreatedBy(), String.class));
+            values.add(MultiRowValues.value(user.getModifiedBy(), String.class));
+        }
+        return readAll(template.getDatabaseClient().sql(sql.toString()).bindValues(values));
+    }
+
+    private Flux<User> updateChunk(List<User> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE users AS u SET "
+                + "username = v.username, email = v.email, first_name = v.first_name, last_name = v.last_name, "
+                + "mobile_number = v.mobile_number, modified_by = v.modified_by, modified_at = CURRENT_TIMESTAMP, "
+                + "version = u.version + 1 "
+                + "FROM (VALUES ");
+        MultiRowValues.append(sql, chunk.size(), UPDATE_COLUMN_TYPES)
+                .append(") AS v (id, username, email, first_name, last_name, mobile_number, modified_by) "
+                        + "WHERE u.id = v.id RETURNING u.*");
+        List<Object> values = new ArrayList<>(chunk.size() * UPDATE_COLUMN_TYPES.length);
+        for (User user : chunk) {
+            values.add(MultiRowValues.value(user.getId(), UUID.class));
+            values.add(MultiRowValues.value(user.getUsername(), String.class));
+            values.add(MultiRowValues.value(user.getEmail(), String.class));
+            values.add(MultiRowValues.value(user.getFirstName(), String.class));
+            values.add(MultiRowValues.value(user.getLastName(), String.class));
+            values.add(MultiRowValues.value(user.getMobileNumber(), String.class));
+            values.add(MultiRowValues.value(user.getModifiedBy(), String.class));
+        }
+        return readAll(template.getDatabaseClient().sql(sql.toString()).bindValues(values));
+    }
+
+    // id and version are always read: responses carry an ETag built from them
+    private static String selectList(Set<UserField> fields) {
+        StringJoiner columns = new StringJoiner(", ").add("id").add("version");
+        for (UserField field : fields) {
+            if (field != UserField.ID) {
+                columns.add(field.column());
+            }
+        }
+        return columns.toString();
+    }
+
+    private Flux<User> readAll(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map((row, metadata) -> template.getConverter().read(User.class, row, metadata))
+                .all();
+    }
+
+    private static Map<String, Function<User, String>> editableColumns() {
+        Map<String, Function<User, String>> columns = new LinkedHashMap<>();
+        columns.put("username", User::getUsername);
+        columns.put("email", User::getEmail);
+        columns.put("first_name", User::getFirstName);
+        columns.put("last_name", User::getLastName);
+        columns.put("mobile_number", User::getMobileNumber);
+        columns.put("modified_by", User::getModifiedBy);
+        return columns;
+    }
+}
@@ -0,0 +1,184 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Answers "is this username/email taken?" with fewer queries. Every username and email is added to a
+ * {@link ScalableBloomFilter}; only a probable hit can mean "taken", and a miss means "free" as far as this
+ * replica knows. Built from the table once the application is ready and fed by local writes and, for writes made
+ * on other replicas, by {@code UserEventListener}. Until the build finishes every check goes to Postgres.
+ * <p>
+ * A miss is answered "free" without a query. The filter can lag a write made on another replica only until
+ * {@code UserEventListener} applies it, and the listener replays recent events after a rebalance, so that window
+ * stays short; the unique indexes still reject a create that lands in it. {@code confirm-misses} is a safety
+ * switch that sends misses to Postgres as well, and the {@code missed} result then counts misses that turned out
+ * to be taken, which should stay at zero. Values with non-ASCII characters always go to Postgres, as
+ * {@code lower()} there folds them by the database's locale, which Java's case mapping doesn't reproduce.
+ * <p>
+ * Values freed by a delete or rename stay in the filter and simply cost a query. The unique indexes remain
+ * the authority either way.
+ */
+@Slf4j
+@Component
+public class UserAvailabilityFilter {
+
+    public enum Field {
+        USERNAME,
+        EMAIL
+    }
+
+    private final UserRepository usersRepository;
+    private final int buildFetchSize;
+    private final boolean confirmMisses;
+    private final ScalableBloomFilter filter;
+    private volatile boolean ready;
+
+    private final Counter filtered;
+    private final Counter confirmedFree;
+    private final Counter missed;
+    private final Counter taken;
+    private final Counter falsePositives;
+    private final Counter unfiltered;
+
+    public UserAvailabilityFilter(UserRepository usersRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.users.availability.filter.initial-capacity:100000}") long initialCapacity,
+                                  @Value("${app.users.availability.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                  @Value("${app.users.availability.filter.confirm-misses:false}") boolean confirmMisses,
+                                  @Value("${app.users.stream.fetch-size:500}") int buildFetchSize) {
+        this.usersRepository = usersRepository;
+        this.buildFetchSize = buildFetchSize;
+        this.confirmMisses = confirmMisses;
+        this.filter = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+        this.filtered = check(meterRegistry, "filtered");
+        this.confirmedFree = check(meterRegistry, "confirmed-free");
+        this.missed = check(meterRegistry, "missed");
+        this.taken = check(meterRegistry, "taken");
+        this.falsePositives = check(meterRegistry, "false-positive");
+        this.unfiltered = check(meterRegistry, "unfiltered");
+        Gauge.builder("user.availability.filter.false-positive-rate", this, UserAvailabilityFilter::observedFalsePositiveRate)
+                .description("Share of free values the filter could not rule out and sent to Postgres")
+                .register(meterRegistry);
+        Gauge.builder("user.availability.filter.size", filter, ScalableBloomFilter::sizeInBytes)
+                .description("Memory held by the filter's bit arrays")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("user.availability.filter.entries", filter, ScalableBloomFilter::count)
+                .description("Usernames and emails added to the filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        build().subscribe(
+                count -> log.info("Added {} users to the availability filter", count),
+                error -> log.error("Building the availability filter failed; availability checks will keep querying Postgres", error));
+    }
+
+    Mono<Long> build() {
+        return usersRepository.streamAll(buildFetchSize)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .doOnNext(this::add)
+                .sequential()
+                .count()
+                .doOnSuccess(count -> ready = true);
+    }
+
+    /**
+     * Whether {@code value} is taken, asking {@code lookup} unless the filter is trusted to rule it out.
+     */
+    public Mono<Boolean> isTaken(Field field, String value, Function<String, Mono<User>> lookup) {
+        return Mono.defer(() -> {
+            String key = key(field, value);
+            if (!ready || key == null) {
+                unfiltered.increment();
+                return lookup.apply(value).hasElement();
+            }
+            if (!filter.mightContain(key)) {
+                if (!confirmMisses) {
+                    filtered.increment();
+                    return Mono.just(false);
+                }
+                return lookup.apply(value)
+                        .hasElement()
+                        .doOnNext(found -> {
+                            if (found) {
+                                missed.increment();
+                                filter.put(key);
+                            } else {
+                                confirmedFree.increment();
+                            }
+                        });
+            }
+            return lookup.apply(value)
+                    .hasElement()
+                    .doOnNext(found -> (found ? taken : falsePositives).increment());
+        });
+    }
+
+    public void add(User user) {
+        add(user.getUsername(), user.getEmail());
+    }
+
+    public void add(String username, String email) {
+        put(key(Field.USERNAME, username));
+        put(key(Field.EMAIL, email));
+    }
+
+    private void put(String key) {
+        if (key != null) {
+            filter.put(key);
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    private double observedFalsePositiveRate() {
+        double free = filtered.count() + confirmedFree.count() + falsePositives.count();
+        return free == 0 ? 0 : falsePositives.count() / free;
+    }
+
+    /**
+     * The filter key, or {@code null} for a value the filter can't answer for. ASCII folds the same way in Java
+     * and in the {@code lower()} unique indexes; other characters depend on the database's locale.
+     */
+    private static String key(Field field, String value) {
+        if (value == null || !isAscii(value)) {
+            return null;
+        }
+        return (field == Field.USERNAME ? "u:" : "e:") + value.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Counter check(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.availability.checks")
+                .description("Username/email availability checks by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package org.binary.scripting.chusersservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting read-through cache of users by id. Entries are evicted by local writes
+ * and, for writes made on other replicas, by {@code UserEventListener}. Users are mutable, so each
+ * caller gets its own copy and the cached instance is never handed out.
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    static final String CACHE_NAME = "users.by-id";
+
+    private final Cache<UUID, User> cache;
+
+    /**
+     * Bumped on every eviction so a load that raced with a write doesn't re-populate a stale row.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(MeterRegistry meterRegistry,
+                     @Value("${app.users.cache.max-size:10000}") long maxSize,
+                     @Value("${app.users.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * A copy of the cached user, or of the one {@code loader} returns. The loader should populate the cache
+     * through {@link #loadThrough}, once per database read rather than once per caller.
+     */
+    public Mono<User> get(UUID id, Function<UUID, Mono<User>> loader) {
+        return Mono.defer(() -> {
+            User cached = cache.getIfPresent(id);
+            if (cached != null) {
+                return Mono.just(copy(cached));
+            }
+            return loader.apply(id).map(UserCache::copy);
+        });
+    }
+
+    /**
+     * Runs {@code load} and caches what it returns, unless a user was evicted after the load started. The
+     * generation is read here, when the read starts: a caller that joins a shared load after a write's
+     * eviction must not cache the row that load read before the write committed.
+     */
+    public Mono<User> loadThrough(UUID id, Function<UUID, Mono<User>> load) {
+        return Mono.defer(() -> {
+            long loadGeneration = generation.get();
+            return load.apply(id)
+                    .doOnNext(user -> {
+                        if (generation.get() == loadGeneration) {
+                            cache.put(id, copy(user));
+                        }
+                    });
+        });
+    }
+
+    public Map<UUID, User> getAllPresent(Collection<UUID> ids) {
+        Map<UUID, User> present = new HashMap<>();
+        cache.getAllPresent(ids).forEach((id, user) -> present.put(id, copy(user)));
+        return present;
+    }
+
+    public void evict(UUID id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction completes, so a read that lands between
+     * the write and the commit can't leave the pre-commit row cached.
+     */
+    public Mono<Void> evictOnCompletion(UUID id) {
+        evict(id);
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(synchronizations -> synchronizations.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        evict(id);
+                        return Mono.empty();
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .then();
+    }
+
+    private static User copy(User user) {
+        return user.toBuilder().build();
+    }
+}
@@ -0,0 +1,128 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * DataLoader-style batching of lookups by id: lookups arriving within a short window are folded into
+ * one {@code WHERE id = ANY($1)} query and the rows handed back to each caller. A batch is flushed when
+ * the window elapses or when it reaches the maximum size, whichever comes first.
+ */
+@Slf4j
+@Component
+public class UserLookupBatcher {
+
+    private final UserRepository usersRepository;
+    private final Duration window;
+    private final int maxSize;
+    private final Scheduler scheduler;
+    private final DistributionSummary batchSize;
+
+    private final Object lock = new Object();
+    private List<Request> pending = new ArrayList<>();
+
+    @Autowired
+    public UserLookupBatcher(UserRepository usersRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.users.lookup.batch.window:2ms}") Duration window,
+                             @Value("${app.users.lookup.batch.max-size:100}") int maxSize) {
+        this(usersRepository, meterRegistry, window, maxSize, Schedulers.parallel());
+    }
+
+    UserLookupBatcher(UserRepository usersRepository, MeterRegistry meterRegistry,
+                      Duration window, int maxSize, Scheduler scheduler) {
+        this.usersRepository = usersRepository;
+        this.window = window;
+        this.maxSize = maxSize;
+        this.scheduler = scheduler;
+        this.batchSize = DistributionSummary.builder("user.lookup.batch.size")
+                .description("Distinct ids per batched lookup query")
+                .register(meterRegistry);
+    }
+
+    public Mono<User> load(UUID id) {
+        if (maxSize <= 1 || window.isZero()) {
+            return usersRepository.findById(id);
+        }
+        return Mono.create(sink -> {
+            Request request = new Request(id, sink);
+            sink.onCancel(() -> request.cancelled = true);
+            enqueue(request);
+        });
+    }
+
+    private void enqueue(Request request) {
+        List<Request> full = null;
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= maxSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            execute(full);
+        }
+    }
+
+    private void flush() {
+        List<Request> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        execute(batch);
+    }
+
+    private List<Request> drain() {
+        List<Request> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void execute(List<Request> batch) {
+        List<Request> live = batch.stream().filter(request -> !request.cancelled).toList();
+        if (live.isEmpty()) {
+            return;
+        }
+        Set<UUID> ids = live.stream().map(request -> request.id).collect(Collectors.toCollection(LinkedHashSet::new));
+        batchSize.record(ids.size());
+        log.debug("Looking up {} users in one query for {} callers", ids.size(), live.size());
+        usersRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .collectMap(User::getId)
+                .subscribe(
+                        users -> live.forEach(request -> request.sink.success(users.get(request.id))),
+                        error -> live.forEach(request -> request.sink.error(error)));
+    }
+
+    private static final class Request {
+
+        private final UUID id;
+        private final MonoSink<User> sink;
+        private volatile boolean cancelled;
+
+        private Request(UUID id, MonoSink<User> sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.binary.scripting.chusersservice.entity.User;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Single-flight for lookups by id: concurrent callers for the same id share one in-flight load
+ * instead of each taking a pool connection. The shared load is cancelled only once every caller
+ * has cancelled, and the entry is removed on completion, error or that final cancel.
+ */
+@Component
+public class UserLookupCoalescer {
+
+    private final ConcurrentMap<UUID, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public UserLookupCoalescer(MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("user.lookup.coalescing")
+                .description("Lookups by id that started a load")
+                .tag("result", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("user.lookup.coalescing")
+                .description("Lookups by id that joined a load already in flight")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("user.lookup.inflight", inFlight, ConcurrentMap::size)
+                .description("Distinct user ids with a load in flight")
+                .register(meterRegistry);
+    }
+
+    public Mono<User> lookup(UUID id, Function<UUID, Mono<User>> loader) {
+        return Mono.defer(() -> {
+            while (true) {
+                Flight existing = inFlight.get(id);
+                if (existing != null) {
+                    if (existing.tryJoin()) {
+                        coalesced.increment();
+                        return existing.join();
+                    }
+                    // Every caller of that load has cancelled; it is on its way out of the map.
+                    inFlight.remove(id, existing);
+                    continue;
+                }
+                Flight flight = new Flight(id);
+                if (inFlight.putIfAbsent(id, flight) == null) {
+                    executed.increment();
+                    flight.start(loader);
+                    return flight.join();
+                }
+            }
+        });
+    }
+
+    /**
+     * One shared load. Callers are counted when they join rather than when they subscribe, so a caller
+     * that cancels before the load even starts still releases it.
+     */
+    private final class Flight {
+
+        private final UUID id;
+        private final Sinks.One<User> result = Sinks.one();
+        private final AtomicInteger callers = new AtomicInteger(1);
+        private volatile Disposable load;
+
+        private Flight(UUID id) {
+            this.id = id;
+        }
+
+        private boolean tryJoin() {
+            int current;
+            do {
+                current = callers.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!callers.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void start(Function<UUID, Mono<User>> loader) {
+            load = Mono.defer(() -> loader.apply(id))
+                    .doFinally(signal -> inFlight.remove(id, this))
+                    .subscribe(result::tryEmitValue, result::tryEmitError, result::tryEmitEmpty);
+        }
+
+        private Mono<User> join() {
+            return result.asMono().doOnCancel(this::leave);
+        }
+
+        private void leave() {
+            if (callers.decrementAndGet() == 0) {
+                inFlight.remove(id, this);
+                Disposable running = load;
+                if (running != null) {
+                    running.dispose();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.event.AfterCommit;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * In-process prefix index over username, email and names for autocomplete. Each searchable term is kept
+ * lower-cased in a sorted set as {@code term \0 userId}, so a prefix query is a range scan that never
+ * touches Postgres. Built from the table once the application is ready and kept current by local writes
+ * and, for writes made on other replicas, by {@code UserEventListener}, which starts reading from before the
+ * build so a write landing between the snapshot and its partition assignment isn't lost.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private final UserRepository usersRepository;
+    private final int buildFetchSize;
+
+    private final NavigableSet<String> terms = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<UUID, UserSuggestion> suggestions = new ConcurrentHashMap<>();
+
+    /**
+     * Ids written while a build is running; the build skips them so it can't overwrite a newer row with the
+     * one it read earlier, or resurrect a deleted one.
+     */
+    private volatile Set<UUID> writtenDuringBuild;
+
+    public UserSearchIndex(UserRepository usersRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.users.stream.fetch-size:500}") int buildFetchSize) {
+        this.usersRepository = usersRepository;
+        this.buildFetchSize = buildFetchSize;
+        Gauge.builder("user.search.index.size", suggestions, ConcurrentMap::size)
+                .description("Users held in the prefix search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        build().subscribe(
+                count -> log.info("Indexed {} users for prefix search", count),
+                error -> log.error("Building the user search index failed; search covers only users written since startup", error));
+    }
+
+    /**
+     * Streams every user and indexes them across the parallel scheduler.
+     */
+    Mono<Long> build() {
+        return Mono.defer(() -> {
+            Set<UUID> written = ConcurrentHashMap.newKeySet();
+            writtenDuringBuild = written;
+            return usersRepository.streamAll(buildFetchSize)
+                    .parallel()
+                    .runOn(Schedulers.parallel())
+                    .doOnNext(user -> put(UserSuggestion.of(user), written))
+                    .sequential()
+                    .count()
+                    .doFinally(signal -> writtenDuringBuild = null);
+        });
+    }
+
+    /**
+     * Up to {@code limit} users with a term starting with {@code prefix}, ignoring case, ordered by the
+     * matching term.
+     */
+    public List<UserSuggestion> search(String prefix, int limit) {
+        String from = normalize(prefix);
+        if (from == null || limit <= 0) {
+            return List.of();
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (String entry : terms.subSet(from, true, from + Character.MAX_VALUE, false)) {
+            ids.add(UUID.fromString(entry.substring(entry.lastIndexOf(SEPARATOR) + 1)));
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+        List<UserSuggestion> matches = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            UserSuggestion suggestion = suggestions.get(id);
+            if (suggestion != null) {
+                matches.add(suggestion);
+            }
+        }
+        return matches;
+    }
+
+    public void index(UserSuggestion suggestion) {
+        markWritten(suggestion.id());
+        put(suggestion, Set.of());
+    }
+
+    public void remove(UUID id) {
+        markWritten(id);
+        suggestions.computeIfPresent(id, (key, existing) -> {
+            termsOf(existing).forEach(terms::remove);
+            return null;
+        });
+    }
+
+    /**
+     * Indexes the users once the surrounding transaction commits, or now when there is none.
+     */
+    public Mono<Void> indexOnCommit(Collection<User> users) {
+        return AfterCommit.run(() -> users.forEach(user -> index(UserSuggestion.of(user))));
+    }
+
+    public Mono<Void> indexOnCommit(User user) {
+        return indexOnCommit(List.of(user));
+    }
+
+    public Mono<Void> removeOnCommit(UUID id) {
+        return AfterCommit.run(() -> remove(id));
+    }
+
+    long size() {
+        return suggestions.size();
+    }
+
+    private void put(UserSuggestion suggestion, Set<UUID> unlessWritten) {
+        // compute() holds the entry's lock, so concurrent writes for one user can't interleave their terms
+        suggestions.compute(suggestion.id(), (key, existing) -> {
+            if (unlessWritten.contains(key)) {
+                return existing;
+            }
+            if (existing != null) {
+                termsOf(existing).forEach(terms::remove);
+            }
+            termsOf(suggestion).forEach(terms::add);
+            return suggestion;
+        });
+    }
+
+    private void markWritten(UUID id) {
+        Set<UUID> written = writtenDuringBuild;
+        if (written != null) {
+            written.add(id);
+        }
+    }
+
+    private static List<String> termsOf(UserSuggestion suggestion) {
+        List<String> keys = new ArrayList<>(5);
+        Consumer<String> add = value -> {
+            String term = normalize(value);
+            if (term != null) {
+                keys.add(term + SEPARATOR + suggestion.id());
+            }
+        };
+        add.accept(suggestion.username());
+        add.accept(suggestion.email());
+        add.accept(suggestion.firstName());
+        add.accept(suggestion.lastName());
+        if (suggestion.firstName() != null && suggestion.lastName() != null) {
+            add.accept(suggestion.firstName() + " " + suggestion.lastName());
+        }
+        return keys;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String term = value.strip().toLowerCase(Locale.ROOT);
+        return term.isEmpty() || term.indexOf(SEPARATOR) >= 0 ? null : term;
+    }
+}
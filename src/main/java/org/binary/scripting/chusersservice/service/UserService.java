@@ -1,15 +1,64 @@
 package org.binary.scripting.chusersservice.service;
 
+import org.binary.scripting.chusersservice.dto.UserAvailability;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserCursor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserPage;
+import org.binary.scripting.chusersservice.dto.UserStats;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
 import org.binary.scripting.chusersservice.entity.User;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public interface UserService {
     Flux<User> findAll(int page, int size);
+    Mono<UserPage> findPage(UserCursor after, int size);
+
+    /**
+     * Like {@link #findAll(int, int)} but only {@code fields} (and the id and version) need be populated.
+     */
+    Flux<User> findAll(int page, int size, Set<UserField> fields);
+
+    /**
+     * Like {@link #findPage(UserCursor, int)} but only {@code fields} (and the id, version and creation time) need be populated.
+     */
+    Mono<UserPage> findPage(UserCursor after, int size, Set<UserField> fields);
+
+    Flux<User> streamAll();
     Mono<User> findById(UUID id);
+
+    /**
+     * Like {@link #findById(UUID)} but only {@code fields} (and the id and version) need be populated.
+     */
+    Mono<User> findById(UUID id, Set<UserField> fields);
+
+    Flux<User> findAllById(List<UUID> ids);
+    Mono<User> findByUsername(String username);
+    Mono<User> findByEmail(String email);
+    Flux<UserSuggestion> search(String prefix, int limit);
+    Mono<UserAvailability> checkAvailability(String username, String email);
+
+    /**
+     * The user total and recent signups from memory; empty until they have been read from the database once.
+     */
+    Mono<UserStats> stats();
+
     Mono<User> create(User user);
     Mono<User> update(UUID id, User user);
+
+    /**
+     * Replaces the user only if its version is one of {@code versions}. Empty if it doesn't exist or has changed.
+     */
+    Mono<User> updateIfVersion(UUID id, User user, Collection<Long> versions);
+
+    Mono<User> patch(UUID id, User changes);
     Mono<Void> delete(UUID id);
+    Flux<UserBatchResult> createAll(List<User> users);
+    Flux<UserBatchResult> updateAll(List<User> users);
 }
@@ -3,14 +3,33 @@ package org.binary.scripting.chusersservice.service;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.dto.UserAvailability;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserCursor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserPage;
+import org.binary.scripting.chusersservice.dto.UserStats;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
 import org.binary.scripting.chusersservice.entity.User;
-import org.binary.scripting.chusersservice.event.UserEventPublisher;
+import org.binary.scripting.chusersservice.event.UserEventRecorder;
 import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.binary.scripting.chusersservice.repository.UserRepositoryCustom;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -19,50 +38,310 @@ import java.util.UUID;
 public class UserServiceImpl implements UserService {
 
     private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int DEFAULT_PAGE_MAX_SIZE = 100;
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+    private static final int DEFAULT_LOOKUP_CHUNK_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int DEFAULT_SEARCH_MAX_LIMIT = 50;
+    // Without an order, offset pages can repeat or skip rows; this one matches the keyset pages and its index
+    private static final Sort PAGE_ORDER = Sort.by("createdAt", "id");
 
     private final UserRepository usersRepository;
-    private final UserEventPublisher userEventPublisher;
+    private final UserEventRecorder userEventRecorder;
+    private final UserCache userCache;
+    private final UserLookupCoalescer userLookupCoalescer;
+    private final UserLookupBatcher userLookupBatcher;
+    private final UserSearchIndex userSearchIndex;
+    private final UserAvailabilityFilter userAvailabilityFilter;
+    private final UserStatistics userStatistics;
+    private final UserServiceMetrics userServiceMetrics;
+
+    @Value("${app.users.page.max-size:" + DEFAULT_PAGE_MAX_SIZE + "}")
+    private int pageMaxSize;
+
+    @Value("${app.users.stream.fetch-size:" + DEFAULT_STREAM_FETCH_SIZE + "}")
+    private int streamFetchSize;
+
+    @Value("${app.users.lookup.chunk-size:" + DEFAULT_LOOKUP_CHUNK_SIZE + "}")
+    private int lookupChunkSize;
+
+    @Value("${app.users.search.max-limit:" + DEFAULT_SEARCH_MAX_LIMIT + "}")
+    private int searchMaxLimit;
 
     @Override
     public Flux<User> findAll(int page, int size) {
-        int pageSize = size > 0 ? size : DEFAULT_PAGE_SIZE;
+        int pageSize = pageSize(size);
         int pageNumber = Math.max(page, 0);
         log.debug("Fetching users - page: {}, size: {}", pageNumber, pageSize);
-        return usersRepository.findAllBy(PageRequest.of(pageNumber, pageSize));
+        return userServiceMetrics.timed("findAll", usersRepository.findAllBy(PageRequest.of(pageNumber, pageSize, PAGE_ORDER)));
+    }
+
+    @Override
+    public Mono<UserPage> findPage(UserCursor after, int size) {
+        int pageSize = pageSize(size);
+        log.debug("Fetching users - after: {}, size: {}", after, pageSize);
+        // One extra row tells us whether another page exists without a COUNT query
+        Flux<User> rows = after == null
+                ? usersRepository.findFirstKeysetPage(pageSize + 1)
+                : usersRepository.findKeysetPageAfter(after.createdAt(), after.id(), pageSize + 1);
+        return userServiceMetrics.timed("findPage", toPage(rows, pageSize));
+    }
+
+    @Override
+    public Flux<User> findAll(int page, int size, @NonNull Set<UserField> fields) {
+        if (fields.containsAll(UserField.ALL)) {
+            return findAll(page, size);
+        }
+        int pageSize = pageSize(size);
+        int pageNumber = Math.max(page, 0);
+        log.debug("Fetching users - page: {}, size: {}, fields: {}", pageNumber, pageSize, fields);
+        return userServiceMetrics.timed("findAll",
+                usersRepository.findPageSelecting(fields, pageSize, (long) pageNumber * pageSize));
+    }
+
+    @Override
+    public Mono<UserPage> findPage(UserCursor after, int size, @NonNull Set<UserField> fields) {
+        if (fields.containsAll(UserField.ALL)) {
+            return findPage(after, size);
+        }
+        int pageSize = pageSize(size);
+        log.debug("Fetching users - after: {}, size: {}, fields: {}", after, pageSize, fields);
+        Flux<User> rows = after == null
+                ? usersRepository.findKeysetPageSelecting(fields, null, null, pageSize + 1)
+                : usersRepository.findKeysetPageSelecting(fields, after.createdAt(), after.id(), pageSize + 1);
+        return userServiceMetrics.timed("findPage", toPage(rows, pageSize));
+    }
+
+    private int pageSize(int size) {
+        int maxSize = pageMaxSize > 0 ? pageMaxSize : DEFAULT_PAGE_MAX_SIZE;
+        return size > 0 ? Math.min(size, maxSize) : DEFAULT_PAGE_SIZE;
+    }
+
+    private static Mono<UserPage> toPage(Flux<User> rows, int pageSize) {
+        return rows.collectList()
+                .map(users -> {
+                    if (users.size() <= pageSize) {
+                        return new UserPage(users, null);
+                    }
+                    List<User> page = users.subList(0, pageSize);
+                    return new UserPage(page, UserCursor.of(page.get(pageSize - 1)));
+                });
+    }
+
+    @Override
+    public Flux<User> streamAll() {
+        int fetchSize = streamFetchSize > 0 ? streamFetchSize : DEFAULT_STREAM_FETCH_SIZE;
+        log.debug("Streaming all users - fetchSize: {}", fetchSize);
+        // Keep upstream requests aligned with the portal fetch size instead of the writer's one-at-a-time demand
+        return usersRepository.streamAll(fetchSize)
+                .limitRate(fetchSize);
     }
 
     @Override
     public Mono<User> findById(@NonNull UUID id) {
         log.debug("Fetching user by id: {}", id);
-        return usersRepository.findById(id);
+        return userServiceMetrics.timed("findById", userCache.get(id,
+                key -> userLookupCoalescer.lookup(key, flight -> userCache.loadThrough(flight, userLookupBatcher::load))));
+    }
+
+    @Override
+    public Mono<User> findById(@NonNull UUID id, @NonNull Set<UserField> fields) {
+        if (fields.containsAll(UserField.ALL)) {
+            return findById(id);
+        }
+        User cached = userCache.getAllPresent(List.of(id)).get(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        log.debug("Fetching user by id: {}, fields: {}", id, fields);
+        // Not cached: a narrow row is not worth caching, so read just the selected columns
+        return userServiceMetrics.timed("findById", usersRepository.findByIdSelecting(id, fields));
     }
 
     @Override
+    public Flux<User> findAllById(@NonNull List<UUID> ids) {
+        Set<UUID> distinct = new LinkedHashSet<>(ids);
+        Map<UUID, User> cached = userCache.getAllPresent(distinct);
+        distinct.removeAll(cached.keySet());
+        int chunkSize = lookupChunkSize > 0 ? lookupChunkSize : DEFAULT_LOOKUP_CHUNK_SIZE;
+        log.debug("Fetching {} users by id - cached: {}, chunkSize: {}", ids.size(), cached.size(), chunkSize);
+        // Bound each ANY($1) array so one huge request can't turn into one huge query
+        return userServiceMetrics.timed("findAllById", Flux.fromIterable(cached.values())
+                .concatWith(Flux.fromIterable(distinct)
+                        .buffer(chunkSize)
+                        .concatMap(chunk -> usersRepository.findAllByIdIn(chunk.toArray(UUID[]::new)))));
+    }
+
+    @Override
+    public Mono<User> findByUsername(@NonNull String username) {
+        log.debug("Fetching user by username: {}", username);
+        return userServiceMetrics.timed("findByUsername", usersRepository.findByUsernameIgnoreCase(username));
+    }
+
+    @Override
+    public Mono<User> findByEmail(@NonNull String email) {
+        log.debug("Fetching user by email: {}", email);
+        return userServiceMetrics.timed("findByEmail", usersRepository.findByEmailIgnoreCase(email));
+    }
+
+    @Override
+    public Mono<UserAvailability> checkAvailability(String username, String email) {
+        log.debug("Checking availability - username: {}, email: {}", username, email);
+        Mono<Boolean> usernameTaken = username == null ? Mono.just(false)
+                : userAvailabilityFilter.isTaken(UserAvailabilityFilter.Field.USERNAME, username, usersRepository::findByUsernameIgnoreCase);
+        Mono<Boolean> emailTaken = email == null ? Mono.just(false)
+                : userAvailabilityFilter.isTaken(UserAvailabilityFilter.Field.EMAIL, email, usersRepository::findByEmailIgnoreCase);
+        return userServiceMetrics.timed("checkAvailability", Mono.zip(usernameTaken, emailTaken)
+                .map(taken -> new UserAvailability(
+                        username, username == null ? null : !taken.getT1(),
+                        email, email == null ? null : !taken.getT2())));
+    }
+
+    @Override
+    public Flux<UserSuggestion> search(@NonNull String prefix, int limit) {
+        int maxLimit = searchMaxLimit > 0 ? searchMaxLimit : DEFAULT_SEARCH_MAX_LIMIT;
+        int resultLimit = limit > 0 ? Math.min(limit, maxLimit) : DEFAULT_SEARCH_LIMIT;
+        log.debug("Searching users - prefix: {}, limit: {}", prefix, resultLimit);
+        return Flux.defer(() -> Flux.fromIterable(userSearchIndex.search(prefix, resultLimit)));
+    }
+
+    @Override
+    public Mono<UserStats> stats() {
+        return Mono.fromSupplier(userStatistics::current);
+    }
+
+    @Override
+    @Transactional
     public Mono<User> create(@NonNull User user) {
         log.info("Creating user: {}", user.getUsername());
-        return usersRepository.save(user)
-                .flatMap(userEventPublisher::publishUserCreated);
+        return userServiceMetrics.timed("create", usersRepository.save(user)
+                .doOnNext(userAvailabilityFilter::add)
+                .flatMap(userEventRecorder::userCreated)
+                .delayUntil(userSearchIndex::indexOnCommit)
+                .delayUntil(userStatistics::createdOnCommit));
     }
 
     @Override
+    @Transactional
     public Mono<User> update(@NonNull UUID id, @NonNull User user) {
         log.info("Updating user: {}", id);
-        return usersRepository.findById(id)
-                .flatMap(existingUser -> {
-                    existingUser.setUsername(user.getUsername());
-                    existingUser.setEmail(user.getEmail());
-                    existingUser.setFirstName(user.getFirstName());
-                    existingUser.setLastName(user.getLastName());
-                    existingUser.setMobileNumber(user.getMobileNumber());
-                    existingUser.setModifiedBy(user.getModifiedBy());
-                    return usersRepository.save(existingUser);
-                })
-                .flatMap(userEventPublisher::publishUserUpdated);
+        return userServiceMetrics.timed("update", userCache.evictOnCompletion(id)
+                .then(usersRepository.replaceById(id, user))
+                .doOnNext(userAvailabilityFilter::add)
+                .flatMap(userEventRecorder::userUpdated)
+                .delayUntil(userSearchIndex::indexOnCommit));
     }
 
     @Override
+    @Transactional
+    public Mono<User> updateIfVersion(@NonNull UUID id, @NonNull User user, @NonNull Collection<Long> versions) {
+        log.info("Updating user: {} if version in {}", id, versions);
+        return userServiceMetrics.timed("update", userCache.evictOnCompletion(id)
+                .then(usersRepository.replaceByIdAndVersion(id, user, versions))
+                .doOnNext(userAvailabilityFilter::add)
+                .flatMap(userEventRecorder::userUpdated)
+                .delayUntil(userSearchIndex::indexOnCommit));
+    }
+
+    @Override
+    @Transactional
+    public Mono<User> patch(@NonNull UUID id, @NonNull User changes) {
+        if (!UserRepositoryCustom.changesAnything(changes)) {
+            // Nothing to write, so no version bump, event or new ETag; just hand back the current user
+            log.debug("Empty patch for user: {}", id);
+            return findById(id);
+        }
+        log.info("Patching user: {}", id);
+        return userServiceMetrics.timed("patch", userCache.evictOnCompletion(id)
+                .then(usersRepository.patchById(id, changes))
+                .doOnNext(userAvailabilityFilter::add)
+                .flatMap(userEventRecorder::userUpdated)
+                .delayUntil(userSearchIndex::indexOnCommit));
+    }
+
+    @Override
+    @Transactional
     public Mono<Void> delete(@NonNull UUID id) {
         log.info("Deleting user: {}", id);
-        return usersRepository.deleteById(id);
+        return userServiceMetrics.timed("delete", userCache.evictOnCompletion(id)
+                .then(usersRepository.removeById(id))
+                .filter(Boolean::booleanValue)
+                .flatMap(deleted -> userEventRecorder.userDeleted(id)
+                        .then(userSearchIndex.removeOnCommit(id))
+                        .then(userStatistics.deletedOnCommit())));
+    }
+
+    @Override
+    @Transactional
+    public Flux<UserBatchResult> createAll(@NonNull List<User> users) {
+        log.info("Creating {} users in batch", users.size());
+        UserBatchResult[] results = new UserBatchResult[users.size()];
+        Map<UUID, Integer> positions = new HashMap<>();
+        List<User> accepted = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user.getId() != null) {
+                results[i] = UserBatchResult.invalid(i, "id is assigned by the server");
+                continue;
+            }
+            if (!StringUtils.hasText(user.getUsername())) {
+                results[i] = UserBatchResult.invalid(i, "username is required");
+                continue;
+            }
+            // Assign ids up front so RETURNING rows map back to request positions without relying on row order;
+            // on a copy, so the caller's objects are left as they were
+            User row = user.toBuilder().id(UUID.randomUUID()).build();
+            positions.put(row.getId(), i);
+            accepted.add(row);
+        }
+        return userServiceMetrics.timed("createAll", usersRepository.insertAll(accepted)
+                .collectList()
+                .flatMap(created -> {
+                    created.forEach(user -> {
+                        userAvailabilityFilter.add(user);
+                        int index = positions.get(user.getId());
+                        results[index] = UserBatchResult.created(index, user);
+                    });
+                    return userEventRecorder.usersCreated(created)
+                            .then(userSearchIndex.indexOnCommit(created))
+                            .then(userStatistics.createdOnCommit(created));
+                })
+                .thenMany(Flux.defer(() -> Flux.fromArray(results))));
+    }
+
+    @Override
+    @Transactional
+    public Flux<UserBatchResult> updateAll(@NonNull List<User> users) {
+        log.info("Updating {} users in batch", users.size());
+        UserBatchResult[] results = new UserBatchResult[users.size()];
+        Map<UUID, Integer> positions = new HashMap<>();
+        List<User> accepted = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user.getId() == null) {
+                results[i] = UserBatchResult.invalid(i, "id is required");
+            } else if (!StringUtils.hasText(user.getUsername())) {
+                results[i] = UserBatchResult.invalid(i, "username is required");
+            } else if (positions.putIfAbsent(user.getId(), i) != null) {
+                results[i] = UserBatchResult.invalid(i, "duplicate id in batch");
+            } else {
+                accepted.add(user);
+            }
+        }
+        return userServiceMetrics.timed("updateAll", Flux.fromIterable(accepted)
+                .concatMap(user -> userCache.evictOnCompletion(user.getId()))
+                .thenMany(usersRepository.updateAll(accepted))
+                .collectList()
+                .flatMap(updated -> {
+                    updated.forEach(user -> {
+                        userAvailabilityFilter.add(user);
+                        int index = positions.get(user.getId());
+                        results[index] = UserBatchResult.updated(index, user);
+                    });
+                    return userEventRecorder.usersUpdated(updated)
+                            .then(userSearchIndex.indexOnCommit(updated));
+                })
+                .thenMany(Flux.defer(() -> Flux.range(0, results.length)
+                        .map(index -> results[index] != null ? results[index] : UserBatchResult.notFound(index)))));
     }
 }
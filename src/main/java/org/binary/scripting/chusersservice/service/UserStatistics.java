@@ -0,0 +1,219 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.binary.scripting.chusersservice.dto.DailySignups;
+import org.binary.scripting.chusersservice.dto.UserStats;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.event.AfterCommit;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The total number of users and signups per UTC day over the last {@code days} days, kept in memory so
+ * {@code GET /v1/users/stats} never counts the table. Seeded from Postgres once the application is ready and
+ * reconciled every refresh interval; in between, local creates and deletes adjust it after they commit.
+ * Writes made on other replicas show up at the next reconcile (counting them from {@code UserEventListener}
+ * would count local writes twice, as it also sees this replica's own events).
+ * <p>
+ * The total comes from {@code count(*)}, or with {@code exact-count=false} from the planner's row estimate,
+ * which costs nothing but is only as fresh as the last ANALYZE. The histogram is read from the rows still in
+ * the table; a local delete only lowers the total, and the user drops out of its signup day at the next
+ * reconcile. Reads share a snapshot rebuilt at most once per {@code snapshot-ttl}.
+ * <p>
+ * Both queries run in one read-only REPEATABLE READ transaction, whose snapshot Postgres takes at its first
+ * statement; the local writes counted up to that point are exactly the ones the new seed already contains.
+ * A write whose after-commit hook has not run yet when the snapshot is taken is still counted twice until
+ * the next reconcile, a window of microseconds rather than the length of the queries.
+ */
+@Slf4j
+@Component
+public class UserStatistics {
+
+    private record Total(long count, boolean estimated) {
+    }
+
+    private record Seed(long total, boolean estimated, Map<LocalDate, Long> signups, Instant at) {
+    }
+
+    private record LocalWrites(long total, Map<LocalDate, Long> signups) {
+    }
+
+    private final UserRepository usersRepository;
+    private final TransactionalOperator snapshotTransaction;
+    private final int days;
+    private final boolean exactCount;
+    private final long snapshotTtlNanos;
+
+    private volatile Seed seed;
+    // Local writes since the seed's snapshot was taken; taken off again when the next seed lands
+    private final LongAdder totalSinceSeed = new LongAdder();
+    private final Map<LocalDate, LongAdder> signupsSinceSeed = new ConcurrentHashMap<>();
+    private final AtomicBoolean seeding = new AtomicBoolean();
+
+    private volatile UserStats snapshot;
+    private volatile long snapshotTakenAt;
+
+    public UserStatistics(UserRepository usersRepository,
+                          ReactiveTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.users.stats.days:30}") int days,
+                          @Value("${app.users.stats.exact-count:true}") boolean exactCount,
+                          @Value("${app.users.stats.snapshot-ttl:1s}") Duration snapshotTtl) {
+        this.usersRepository = usersRepository;
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        definition.setReadOnly(true);
+        this.snapshotTransaction = TransactionalOperator.create(transactionManager, definition);
+        this.days = Math.max(days, 1);
+        this.exactCount = exactCount;
+        this.snapshotTtlNanos = snapshotTtl.toNanos();
+        Gauge.builder("user.count", this, UserStatistics::total)
+                .description("Users in the database, as last reconciled plus local creates and deletes since")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        reconcile().subscribe(
+                stats -> log.info("Seeded user statistics - total: {}, estimated: {}", stats.total(), stats.totalEstimated()),
+                error -> log.error("Seeding user statistics failed; /v1/users/stats stays unavailable until the next refresh", error));
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.stats.refresh-interval-ms:600000}",
+            initialDelayString = "${app.users.stats.refresh-interval-ms:600000}")
+    public void refresh() {
+        reconcile().subscribe(
+                stats -> log.debug("Reconciled user statistics - total: {}", stats.total()),
+                error -> log.warn("Reconciling user statistics failed; keeping the previous figures", error));
+    }
+
+    /**
+     * Reads the total and the histogram from Postgres and replaces the seed. Empty if a reconcile is already running.
+     */
+    public Mono<UserStats> reconcile() {
+        return Mono.defer(() -> {
+            if (!seeding.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            LocalDate firstDay = firstDay();
+            // Subscribed once BEGIN has run, right before the statement that takes the transaction's snapshot
+            Mono<Tuple2<Seed, LocalWrites>> seedQueries = Mono.fromSupplier(this::localWrites)
+                    .flatMap(counted -> countTotal()
+                            .flatMap(total -> usersRepository.countSignupsPerDaySince(firstDay.atStartOfDay(ZoneOffset.UTC).toInstant())
+                                    .collectMap(DailySignups::day, DailySignups::signups)
+                                    .map(signups -> Tuples.of(new Seed(total.count(), total.estimated(), signups, Instant.now()), counted))));
+            return snapshotTransaction.transactional(seedQueries)
+                    .map(result -> {
+                        seed = result.getT1();
+                        // Anything counted before the snapshot was taken is in the new seed
+                        LocalWrites counted = result.getT2();
+                        totalSinceSeed.add(-counted.total());
+                        counted.signups().forEach((day, count) -> signupsSinceSeed.get(day).add(-count));
+                        signupsSinceSeed.keySet().removeIf(day -> day.isBefore(firstDay));
+                        snapshot = null;
+                        return current();
+                    })
+                    .doFinally(signal -> seeding.set(false));
+        });
+    }
+
+    private LocalWrites localWrites() {
+        Map<LocalDate, Long> signups = new HashMap<>();
+        signupsSinceSeed.forEach((day, count) -> signups.put(day, count.sum()));
+        return new LocalWrites(totalSinceSeed.sum(), signups);
+    }
+
+    // A table that was never analyzed has no estimate, so it is counted instead
+    private Mono<Total> countTotal() {
+        Mono<Total> exact = Mono.defer(() -> usersRepository.count().map(count -> new Total(count, false)));
+        if (exactCount) {
+            return exact;
+        }
+        return usersRepository.estimateCount()
+                .filter(estimate -> estimate >= 0)
+                .map(estimate -> new Total(estimate, true))
+                .switchIfEmpty(exact);
+    }
+
+    /**
+     * The current figures, or {@code null} until the first seed has landed.
+     */
+    public UserStats current() {
+        if (seed == null) {
+            return null;
+        }
+        UserStats stats = snapshot;
+        long now = System.nanoTime();
+        if (stats == null || now - snapshotTakenAt >= snapshotTtlNanos) {
+            stats = buildSnapshot();
+            snapshot = stats;
+            snapshotTakenAt = now;
+        }
+        return stats;
+    }
+
+    public Mono<Void> createdOnCommit(User user) {
+        return AfterCommit.run(() -> created(user));
+    }
+
+    public Mono<Void> createdOnCommit(Collection<User> users) {
+        return AfterCommit.run(() -> users.forEach(this::created));
+    }
+
+    public Mono<Void> deletedOnCommit() {
+        return AfterCommit.run(totalSinceSeed::decrement);
+    }
+
+    void created(User user) {
+        Instant createdAt = user.getCreatedAt() != null ? user.getCreatedAt() : Instant.now();
+        totalSinceSeed.increment();
+        signupsSinceSeed.computeIfAbsent(LocalDate.ofInstant(createdAt, ZoneOffset.UTC), day -> new LongAdder()).increment();
+    }
+
+    private long total() {
+        Seed current = seed;
+        return (current != null ? current.total() : 0) + totalSinceSeed.sum();
+    }
+
+    private UserStats buildSnapshot() {
+        Seed current = seed;
+        LocalDate day = firstDay();
+        List<DailySignups> signups = new ArrayList<>(days);
+        for (int i = 0; i < days; i++, day = day.plusDays(1)) {
+            LongAdder local = signupsSinceSeed.get(day);
+            long count = current.signups().getOrDefault(day, 0L) + (local != null ? local.sum() : 0);
+            signups.add(new DailySignups(day, count));
+        }
+        return new UserStats(Math.max(total(), 0), current.estimated(), List.copyOf(signups), current.at());
+    }
+
+    private LocalDate firstDay() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(days - 1);
+    }
+}
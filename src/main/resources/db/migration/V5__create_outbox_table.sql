@@ -0,0 +1,12 @@
+CREATE TABLE outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_id UUID NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    user_id UUID NOT NULL,
+    username VARCHAR(255),
+    email VARCHAR(255),
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    mobile_number VARCHAR(20),
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,25 @@
+-- Usernames and emails are unique regardless of case; these replace the plain indexes from V1.
+-- Runs outside a transaction (see the .conf file) so the indexes are built CONCURRENTLY, without blocking writes.
+
+-- Fail with a readable message instead of a half-built index when existing rows already collide.
+-- DEPLOYMENT.md ("Case-insensitive duplicates") describes how to resolve them.
+DO $$
+DECLARE
+    usernames BIGINT;
+    emails BIGINT;
+BEGIN
+    SELECT count(*) INTO usernames FROM (SELECT 1 FROM users GROUP BY lower(username) HAVING count(*) > 1) d;
+    SELECT count(*) INTO emails FROM (SELECT 1 FROM users WHERE email IS NOT NULL GROUP BY lower(email) HAVING count(*) > 1) d;
+    IF usernames > 0 OR emails > 0 THEN
+        RAISE EXCEPTION 'V6: % username(s) and % email(s) are shared by users that differ only in case; resolve them before migrating', usernames, emails;
+    END IF;
+END $$;
+
+-- A failed concurrent build leaves an INVALID index behind; drop it so a retry starts clean
+DROP INDEX CONCURRENTLY IF EXISTS ux_users_username_lower;
+CREATE UNIQUE INDEX CONCURRENTLY ux_users_username_lower ON users(lower(username));
+DROP INDEX CONCURRENTLY IF EXISTS ux_users_email_lower;
+CREATE UNIQUE INDEX CONCURRENTLY ux_users_email_lower ON users(lower(email));
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_username;
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_email;
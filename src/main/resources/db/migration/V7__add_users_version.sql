@@ -0,0 +1,2 @@
+-- Bumped by every update. A user's ETag is derived from id and version, and If-Match writes compare it.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Set on the batch the outbox relay is publishing, so the relay needs no open transaction while Kafka acknowledges it.
+-- Another replica only takes the batch over once the claim has expired.
+ALTER TABLE outbox ADD COLUMN claimed_until TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,72 @@
+package org.binary.scripting.chusersservice.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggerRateLimitFilterTest {
+
+    private LoggerContext context;
+    private LoggerRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.DEBUG);
+        filter = new LoggerRateLimitFilter();
+        filter.setContext(context);
+        filter.setLimits("org.example=5, org.example.quiet=0, not-a-limit");
+        filter.start();
+    }
+
+    @Test
+    void decide_shouldDenyEventsOverTheBudgetSharedByChildLoggers() {
+        long deniedBefore = LoggerRateLimitFilter.deniedCount();
+        Logger parent = context.getLogger("org.example");
+        Logger child = context.getLogger("org.example.Child");
+
+        long allowed = IntStream.range(0, 10)
+                .mapToObj(i -> decide(i % 2 == 0 ? parent : child, Level.INFO))
+                .filter(reply -> reply == FilterReply.NEUTRAL)
+                .count();
+
+        // The window may roll over mid-loop, which only ever lets more through
+        assertThat(allowed).isBetween(5L, 10L);
+        assertThat(LoggerRateLimitFilter.deniedCount() - deniedBefore).isEqualTo(10 - allowed);
+    }
+
+    @Test
+    void decide_shouldUseTheMostSpecificLimit() {
+        assertThat(decide(context.getLogger("org.example.quiet.Chatty"), Level.DEBUG)).isEqualTo(FilterReply.DENY);
+    }
+
+    @Test
+    void decide_shouldLeaveWarningsEnabledChecksAndUnconfiguredLoggersAlone() {
+        Logger quiet = context.getLogger("org.example.quiet");
+
+        assertThat(decide(quiet, Level.WARN)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(filter.decide(null, quiet, Level.DEBUG, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(context.getLogger("com.other"), Level.DEBUG)).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    void decide_shouldNotSpendBudgetOnEventsBelowTheLoggersLevel() {
+        Logger quiet = context.getLogger("org.example.quiet");
+        quiet.setLevel(Level.INFO);
+        long deniedBefore = LoggerRateLimitFilter.deniedCount();
+
+        assertThat(decide(quiet, Level.DEBUG)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(LoggerRateLimitFilter.deniedCount()).isEqualTo(deniedBefore);
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "message {}", new Object[]{1}, null);
+    }
+}
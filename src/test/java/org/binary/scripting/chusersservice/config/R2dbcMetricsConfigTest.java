@@ -0,0 +1,57 @@
+package org.binary.scripting.chusersservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The test profile turns pooling off, which would leave the acquire timer untested; this context turns it back on.
+ */
+@SpringBootTest(properties = "spring.r2dbc.pool.enabled=true")
+@ActiveProfiles("test")
+class R2dbcMetricsConfigTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void connectionFactory_shouldBeThePoolWrappedInTheAcquireTimer() {
+        assertThat(connectionFactory).isInstanceOf(R2dbcMetricsConfig.TimedConnectionFactory.class);
+        assertThat(((Wrapped<?>) connectionFactory).unwrap()).isInstanceOf(ConnectionPool.class);
+    }
+
+    @Test
+    void query_shouldRecordConnectionAcquisition() {
+        long before = meterRegistry.get("r2dbc.connection.acquire").tag("result", "success").timer().count();
+
+        userRepository.count().block();
+        userRepository.count().block();
+
+        assertThat(meterRegistry.get("r2dbc.connection.acquire").tag("result", "success").timer().count())
+                .isEqualTo(before + 2);
+        assertThat(meterRegistry.get("r2dbc.connection.acquire").tag("result", "failure").timer().count()).isZero();
+    }
+
+    @Test
+    void poolGauges_shouldStillResolveThroughTheWrapper() {
+        userRepository.count().block();
+
+        assertThat(meterRegistry.get("r2dbc.pool.max.allocated").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("r2dbc.pool.allocated").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("r2dbc.pool.acquired").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,22 @@
+package org.binary.scripting.chusersservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaMigrationTest {
+
+    @Test
+    void isRequested_shouldOnlyMatchMigrateOnly() {
+        assertThat(SchemaMigration.isRequested(new String[]{"--app.schema.mode=migrate-only"})).isTrue();
+        assertThat(SchemaMigration.isRequested(new String[]{"--app.schema.mode=MIGRATE_ONLY"})).isTrue();
+        assertThat(SchemaMigration.isRequested(new String[]{"--app.schema.mode=validate"})).isFalse();
+        assertThat(SchemaMigration.isRequested(new String[0])).isFalse();
+    }
+
+    @Test
+    void latestMigration_shouldCompareVersionsNumerically() {
+        assertThat(SchemaVersionHealthIndicator.latestMigration(new String[]{"classpath:db/migration"}))
+                .hasToString("8");
+    }
+}
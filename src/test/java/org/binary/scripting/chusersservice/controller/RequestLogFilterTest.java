@@ -0,0 +1,137 @@
+package org.binary.scripting.chusersservice.controller;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLogFilterTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RequestLogFilter.class);
+    private ListAppender<ILoggingEvent> appender;
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void filter_withClientErrorException_shouldBeSampledLikeOtherRequests() {
+        RequestLogFilter unsampled = new RequestLogFilter(new MockEnvironment(), 0.0);
+
+        for (int i = 0; i < 100; i++) {
+            run(unsampled, Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown field")));
+        }
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void filter_withSampledClientErrorException_shouldLogItsStatusAtInfo() {
+        run(new RequestLogFilter(new MockEnvironment(), 1.0),
+                Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.INFO);
+            assertThat(event.getFormattedMessage()).startsWith("GET /v1/users -> 404 in ");
+        });
+    }
+
+    @Test
+    void filter_withServerErrorException_shouldAlwaysWarn() {
+        run(new RequestLogFilter(new MockEnvironment(), 0.0),
+                Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE)));
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage()).startsWith("GET /v1/users -> 503");
+        });
+    }
+
+    @Test
+    void filter_withUnhandledException_shouldAlwaysWarn() {
+        run(new RequestLogFilter(new MockEnvironment(), 0.0), Mono.error(new IllegalStateException("boom")));
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage()).startsWith("GET /v1/users -> IllegalStateException");
+        });
+    }
+
+    @Test
+    void filter_withServerErrorStatus_shouldAlwaysWarn() {
+        RequestLogFilter filter = new RequestLogFilter(new MockEnvironment(), 0.0);
+        MockServerWebExchange exchange = exchange();
+
+        StepVerifier.create(filter.filter(exchange, done -> Mono.fromRunnable(
+                        () -> done.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR))))
+                .verifyComplete();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.WARN);
+    }
+
+    @Test
+    void sampleRate_shouldPreferTheHandlerMethodsRate() throws NoSuchMethodException {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(RequestLogFilter.SAMPLE_RATE_PREFIX + "getById", "0.5");
+        RequestLogFilter filter = new RequestLogFilter(environment, 0.25);
+        MockServerWebExchange handled = exchange();
+        handled.getAttributes().put(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new Handlers(), Handlers.class.getMethod("getById")));
+        MockServerWebExchange other = exchange();
+        other.getAttributes().put(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new Handlers(), Handlers.class.getMethod("search")));
+
+        assertThat(filter.sampleRate(handled)).isEqualTo(0.5);
+        assertThat(filter.sampleRate(other)).isEqualTo(0.25);
+        // No handler resolved, e.g. an unmapped path
+        assertThat(filter.sampleRate(exchange())).isEqualTo(0.25);
+    }
+
+    private static void run(RequestLogFilter filter, Mono<Void> outcome) {
+        WebFilterChain chain = exchange -> outcome;
+        StepVerifier.create(filter.filter(exchange(), chain))
+                .expectError()
+                .verify();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/v1/users"));
+    }
+
+    public static class Handlers {
+
+        public void getById() {
+        }
+
+        public void search() {
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package org.binary.scripting.chusersservice.controller;
 
 import org.binary.scripting.chusersservice.config.R2dbcAuditingConfig;
+import org.binary.scripting.chusersservice.dto.DailySignups;
+import org.binary.scripting.chusersservice.dto.UserAvailability;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
+import org.binary.scripting.chusersservice.dto.UserCursor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserPage;
+import org.binary.scripting.chusersservice.dto.UserStats;
 import org.binary.scripting.chusersservice.entity.User;
 import org.binary.scripting.chusersservice.controller.UserController;
 import org.binary.scripting.chusersservice.service.UserService;
@@ -12,16 +20,32 @@ import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = UserController.class, excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = R2dbcAuditingConfig.class))
@@ -65,7 +89,7 @@ class UserControllerTest {
 
     @Test
     void getAll_shouldReturnUsers() {
-        when(userService.findAll(0, 10))
+        when(userService.findAll(0, 10, UserField.ALL))
                 .thenReturn(Flux.just(testUser));
 
         webTestClient.get()
@@ -80,7 +104,7 @@ class UserControllerTest {
 
     @Test
     void getAll_withDefaultPagination_shouldReturnUsers() {
-        when(userService.findAll(0, 10))
+        when(userService.findAll(0, 10, UserField.ALL))
                 .thenReturn(Flux.just(testUser));
 
         webTestClient.get()
@@ -92,9 +116,80 @@ class UserControllerTest {
                 .hasSize(1);
     }
 
+    @Test
+    void getAll_withEmptyCursor_shouldReturnFirstKeysetPageAndNextCursor() {
+        UserCursor next = UserCursor.of(testUser);
+        when(userService.findPage(isNull(), eq(10), eq(UserField.ALL)))
+                .thenReturn(Mono.just(new UserPage(List.of(testUser), next)));
+
+        webTestClient.get()
+                .uri("/v1/users?cursor=&size=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", next.encode())
+                .expectBodyList(User.class)
+                .hasSize(1)
+                .contains(testUser);
+    }
+
+    @Test
+    void getAll_withCursor_shouldDecodeItAndOmitHeaderOnLastPage() {
+        UserCursor cursor = UserCursor.of(testUser);
+        when(userService.findPage(cursor, 10, UserField.ALL))
+                .thenReturn(Mono.just(new UserPage(List.of(), null)));
+
+        webTestClient.get()
+                .uri("/v1/users?cursor={cursor}", cursor.encode())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(User.class)
+                .hasSize(0);
+    }
+
+    @Test
+    void getAll_withMalformedCursor_shouldReturn400() {
+        webTestClient.get()
+                .uri("/v1/users?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAll_withCursorOutsideTheInstantRange_shouldReturn400() {
+        byte[] token = ByteBuffer.allocate(28).putLong(Long.MAX_VALUE).putInt(0).putLong(1).putLong(2).array();
+
+        webTestClient.get()
+                .uri("/v1/users?cursor={cursor}", Base64.getUrlEncoder().withoutPadding().encodeToString(token))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void stream_shouldReturnNdjson() {
+        when(userService.streamAll())
+                .thenReturn(Flux.just(testUser, testUser));
+
+        webTestClient.get()
+                .uri("/v1/users/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(User.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNext(testUser, testUser)
+                .verifyComplete();
+    }
+
     @Test
     void getById_shouldReturnUser() {
-        when(userService.findById(testId))
+        when(userService.findById(testId, UserField.ALL))
                 .thenReturn(Mono.just(testUser));
 
         webTestClient.get()
@@ -106,9 +201,66 @@ class UserControllerTest {
                 .isEqualTo(testUser);
     }
 
+    @Test
+    void getById_shouldReturnValidatorsAnd304WhenUnchanged() {
+        testUser.setVersion(3L);
+        when(userService.findById(testId, UserField.ALL))
+                .thenReturn(Mono.just(testUser));
+
+        String etag = webTestClient.get()
+                .uri("/v1/users/{id}", testId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + testId + "-3\"")
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .expectBody().jsonPath("$.version").doesNotExist()
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri("/v1/users/{id}", testId)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.get()
+                .uri("/v1/users/{id}", testId)
+                .ifModifiedSince(ZonedDateTime.ofInstant(testUser.getModifiedAt().plusSeconds(1), ZoneOffset.UTC))
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void getById_withFields_shouldWriteOnlyThoseFields() {
+        Set<UserField> fields = Set.of(UserField.ID, UserField.USERNAME);
+        when(userService.findById(testId, fields))
+                .thenReturn(Mono.just(User.builder().id(testId).username("testuser").version(2L).build()));
+
+        webTestClient.get()
+                .uri("/v1/users/{id}?fields=id,username", testId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + testId + "-2.3\"")
+                .expectHeader().doesNotExist(HttpHeaders.LAST_MODIFIED)
+                .expectBody()
+                .json("{\"id\":\"" + testId + "\",\"username\":\"testuser\"}", JsonCompareMode.STRICT);
+    }
+
+    @Test
+    void getAll_withUnknownField_shouldReturn400() {
+        webTestClient.get()
+                .uri("/v1/users?fields=id,password")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void getById_whenNotFound_shouldReturn404() {
-        when(userService.findById(testId))
+        when(userService.findById(testId, UserField.ALL))
                 .thenReturn(Mono.empty());
 
         webTestClient.get()
@@ -152,6 +304,221 @@ class UserControllerTest {
                 });
     }
 
+    @Test
+    void lookup_shouldReturnFoundUsers() {
+        UUID unknownId = UUID.randomUUID();
+        when(userService.findAllById(List.of(testId, unknownId)))
+                .thenReturn(Flux.just(testUser));
+
+        webTestClient.post()
+                .uri("/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(testId, unknownId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class)
+                .contains(testUser)
+                .hasSize(1);
+    }
+
+    @Test
+    void lookup_whenTooManyIds_shouldReturn400() {
+        List<UUID> ids = Stream.generate(UUID::randomUUID).limit(1001).toList();
+
+        webTestClient.post()
+                .uri("/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ids)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void lookup_withNullId_shouldReturn400() {
+        webTestClient.post()
+                .uri("/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[\"" + testId + "\", null]")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getByUsername_shouldReturnUser() {
+        when(userService.findByUsername("TestUser"))
+                .thenReturn(Mono.just(testUser));
+
+        webTestClient.get()
+                .uri("/v1/users/by-username/{username}", "TestUser")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .isEqualTo(testUser);
+    }
+
+    @Test
+    void getByEmail_whenNotFound_shouldReturn404() {
+        when(userService.findByEmail("nobody@example.com"))
+                .thenReturn(Mono.empty());
+
+        webTestClient.get()
+                .uri("/v1/users/by-email/{email}", "nobody@example.com")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void create_whenUsernameTaken_shouldReturn409() {
+        when(userService.create(any(User.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key value violates unique constraint")));
+
+        webTestClient.post()
+                .uri("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testUser)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("Username or email is already taken");
+    }
+
+    @Test
+    void availability_shouldReturnPerValueResult() {
+        when(userService.checkAvailability("testuser", null))
+                .thenReturn(Mono.just(new UserAvailability("testuser", false, null, null)));
+
+        webTestClient.get()
+                .uri("/v1/users/availability?username=testuser")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("testuser")
+                .jsonPath("$.usernameAvailable").isEqualTo(false)
+                .jsonPath("$.emailAvailable").doesNotExist();
+    }
+
+    @Test
+    void availabilityHead_whenTaken_shouldReturn409() {
+        when(userService.checkAvailability(null, "test@example.com"))
+                .thenReturn(Mono.just(new UserAvailability(null, null, "test@example.com", false)));
+
+        webTestClient.head()
+                .uri("/v1/users/availability?email=test@example.com")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void availability_withoutUsernameOrEmail_shouldReturn400() {
+        webTestClient.get()
+                .uri("/v1/users/availability")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void stats_shouldReturnStats() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(userService.stats())
+                .thenReturn(Mono.just(new UserStats(12, false, List.of(new DailySignups(today, 3)), Instant.now())));
+
+        webTestClient.get()
+                .uri("/v1/users/stats")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").isEqualTo(12)
+                .jsonPath("$.totalEstimated").isEqualTo(false)
+                .jsonPath("$.signupsPerDay[0].day").isEqualTo(today.toString())
+                .jsonPath("$.signupsPerDay[0].signups").isEqualTo(3);
+    }
+
+    @Test
+    void stats_beforeSeeded_shouldReturn503() {
+        when(userService.stats())
+                .thenReturn(Mono.empty());
+
+        webTestClient.get()
+                .uri("/v1/users/stats")
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    void search_shouldReturnSuggestions() {
+        when(userService.search("test", 5))
+                .thenReturn(Flux.just(UserSuggestion.of(testUser)));
+
+        webTestClient.get()
+                .uri("/v1/users/search?prefix=test&limit=5")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(testId.toString())
+                .jsonPath("$[0].username").isEqualTo("testuser");
+    }
+
+    @Test
+    void search_whenPrefixBlank_shouldReturn400() {
+        webTestClient.get()
+                .uri("/v1/users/search?prefix= ")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void createAll_shouldReturnPerItemResults() {
+        when(userService.createAll(anyList()))
+                .thenReturn(Flux.just(UserBatchResult.created(0, testUser), UserBatchResult.invalid(1, "username is required")));
+
+        webTestClient.post()
+                .uri("/v1/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(testUser, User.builder().build()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("CREATED")
+                .jsonPath("$[0].user.id").isEqualTo(testId.toString())
+                .jsonPath("$[1].status").isEqualTo("INVALID")
+                .jsonPath("$[1].error").isEqualTo("username is required");
+    }
+
+    @Test
+    void createAll_withNullItem_shouldReturn400() {
+        webTestClient.post()
+                .uri("/v1/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"username\": \"someone\"}, null]")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void updateAll_shouldReturnPerItemResults() {
+        when(userService.updateAll(anyList()))
+                .thenReturn(Flux.just(UserBatchResult.notFound(0)));
+
+        webTestClient.put()
+                .uri("/v1/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(testUser))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].index").isEqualTo(0)
+                .jsonPath("$[0].status").isEqualTo("NOT_FOUND");
+    }
+
     @Test
     void update_shouldReturnUpdatedUser() {
         User updatedUser = User.builder()
@@ -185,6 +552,49 @@ class UserControllerTest {
                 });
     }
 
+    @Test
+    void update_withMatchingIfMatch_shouldUpdateOnlyThatVersion() {
+        testUser.setVersion(5L);
+        when(userService.updateIfVersion(eq(testId), any(User.class), eq(Set.of(4L))))
+                .thenReturn(Mono.just(testUser));
+
+        webTestClient.put()
+                .uri("/v1/users/{id}", testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"" + testId + "-4\"")
+                .bodyValue(testUser)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + testId + "-5\"");
+    }
+
+    @Test
+    void update_withStaleIfMatch_shouldReturn412() {
+        when(userService.updateIfVersion(eq(testId), any(User.class), eq(Set.of(4L))))
+                .thenReturn(Mono.empty());
+
+        webTestClient.put()
+                .uri("/v1/users/{id}", testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"" + testId + "-4\"")
+                .bodyValue(testUser)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void update_withIfMatchForAnotherUser_shouldReturn412WithoutWriting() {
+        webTestClient.put()
+                .uri("/v1/users/{id}", testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"" + UUID.randomUUID() + "-4\"", "W/\"" + testId + "-4\"")
+                .bodyValue(testUser)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void update_whenNotFound_shouldReturn404() {
         when(userService.update(eq(testId), any(User.class)))
@@ -198,6 +608,34 @@ class UserControllerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void patch_shouldReturnUpdatedUser() {
+        when(userService.patch(eq(testId), any(User.class)))
+                .thenReturn(Mono.just(testUser));
+
+        webTestClient.patch()
+                .uri("/v1/users/{id}", testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"mobileNumber\":\"+1234567890\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .isEqualTo(testUser);
+    }
+
+    @Test
+    void patch_whenNotFound_shouldReturn404() {
+        when(userService.patch(eq(testId), any(User.class)))
+                .thenReturn(Mono.empty());
+
+        webTestClient.patch()
+                .uri("/v1/users/{id}", testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\":\"Nobody\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     void delete_shouldReturn200() {
         when(userService.delete(testId))
@@ -0,0 +1,122 @@
+package org.binary.scripting.chusersservice.controller;
+
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserProjection;
+import org.binary.scripting.chusersservice.entity.User;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.JacksonJsonEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserJsonEncoderTest {
+
+    private static final ResolvableType USER = ResolvableType.forClass(User.class);
+    private static final ResolvableType PROJECTION = ResolvableType.forClass(UserProjection.class);
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final JacksonJsonEncoder jackson = new JacksonJsonEncoder();
+    private final UserJsonEncoder encoder = new UserJsonEncoder(4, Duration.ofMillis(1));
+
+    @Test
+    void shouldWriteTheSameBytesAsJackson() {
+        List<User> users = IntStream.range(0, 200).mapToObj(UserJsonEncoderTest::randomUser).toList();
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON)) {
+            assertThat(encode(encoder, Flux.fromIterable(users), USER, mediaType))
+                    .isEqualTo(encode(jackson, Flux.fromIterable(users), USER, mediaType));
+        }
+        for (User user : users) {
+            assertThat(encode(encoder, Mono.just(user), USER, MediaType.APPLICATION_JSON))
+                    .isEqualTo(encode(jackson, Mono.just(user), USER, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Test
+    void shouldWriteOnlyProjectedFieldsLikeTheProjectionSerializer() {
+        List<UserProjection> projections = IntStream.range(0, 20)
+                .mapToObj(i -> UserProjection.of(randomUser(i), i % 2 == 0 ? UserField.parse("id,username,createdAt") : UserField.ALL))
+                .toList();
+
+        assertThat(encode(encoder, Flux.fromIterable(projections), PROJECTION, MediaType.APPLICATION_JSON))
+                .isEqualTo(encode(jackson, Flux.fromIterable(projections), PROJECTION, MediaType.APPLICATION_JSON))
+                .doesNotContain("version");
+    }
+
+    @Test
+    void shouldWriteEmptyArrayAndSkipNdjsonForNoUsers() {
+        assertThat(encode(encoder, Flux.empty(), USER, MediaType.APPLICATION_JSON)).isEqualTo("[]");
+        assertThat(encode(encoder, Flux.empty(), USER, MediaType.APPLICATION_NDJSON)).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyClaimUsersAsJson() {
+        assertThat(encoder.canEncode(USER, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(encoder.canEncode(PROJECTION, MediaType.APPLICATION_NDJSON)).isTrue();
+        assertThat(encoder.canEncode(USER, null)).isTrue();
+        assertThat(encoder.canEncode(USER, MediaType.TEXT_EVENT_STREAM)).isFalse();
+        assertThat(encoder.canEncode(ResolvableType.forClass(Object.class), MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    private String encode(Encoder<Object> encoder, Publisher<?> input, ResolvableType type, MediaType mediaType) {
+        return DataBufferUtils.join(encoder.encode(input, bufferFactory, type, mediaType, Map.of()))
+                .map(buffer -> {
+                    String json = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return json;
+                })
+                .defaultIfEmpty("")
+                .block();
+    }
+
+    private static User randomUser(int i) {
+        Random random = new Random(i);
+        Instant createdAt = Instant.ofEpochSecond(random.nextLong(-62_167_219_200L - 1_000, 253_402_300_799L + 1_000),
+                switch (i % 4) {
+                    case 0 -> 0;
+                    case 1 -> random.nextInt(1_000) * 1_000_000;
+                    case 2 -> random.nextInt(1_000_000) * 1_000;
+                    default -> random.nextInt(1_000_000_000);
+                });
+        return User.builder()
+                .id(i % 10 == 9 ? null : new UUID(random.nextLong(), random.nextLong()))
+                .username("user" + i)
+                .email(i % 5 == 0 ? null : "user" + i + "@example.com")
+                .firstName(randomText(random))
+                .lastName(randomText(random))
+                .mobileNumber("+1-555-" + i)
+                .createdBy("system")
+                .modifiedBy(null)
+                .createdAt(createdAt)
+                .modifiedAt(i % 3 == 0 ? null : Instant.now().plusNanos(i))
+                .version((long) i)
+                .build();
+    }
+
+    // Control characters, quotes, backslashes, Latin-1, CJK and supplementary characters
+    private static String randomText(Random random) {
+        int[] pool = {0x00, 0x01, 0x08, 0x09, 0x0A, 0x0C, 0x0D, 0x1F, '"', '\\', '/', 'a', 'Z', '7', ' ',
+                0x7F, 0xE9, 0x7FF, 0x800, 0x4E2D, 0xFFFD, 0x1F600, 0x10348};
+        StringBuilder text = new StringBuilder();
+        for (int j = random.nextInt(12); j > 0; j--) {
+            text.appendCodePoint(pool[random.nextInt(pool.length)]);
+        }
+        return text.toString();
+    }
+}
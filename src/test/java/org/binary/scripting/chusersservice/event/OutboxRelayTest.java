@@ -0,0 +1,174 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private UserEventPublisher userEventPublisher;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxRepository, userEventPublisher, transactionalOperator, meterRegistry, BATCH_SIZE,
+                Duration.ofMinutes(5));
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(returnsFirstArg());
+        lenient().when(outboxRepository.findOldest(1)).thenReturn(Flux.empty());
+        lenient().when(outboxRepository.claim(anyCollection(), any(Instant.class))).thenReturn(Mono.just(1));
+    }
+
+    @Test
+    void relay_shouldDrainFullBatchesUntilOutboxIsEmpty() {
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(true));
+        when(outboxRepository.findOldest(BATCH_SIZE))
+                .thenReturn(Flux.just(outboxEvent(1L), outboxEvent(2L)))
+                .thenReturn(Flux.just(outboxEvent(3L)));
+        when(userEventPublisher.publishAll(anyList()))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteAllById(anyList()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository, times(2)).deleteAllById(deleted.capture());
+        assertThat(deleted.getAllValues()).containsExactly(List.of(1L, 2L), List.of(3L));
+        assertThat(meterRegistry.counter("user.outbox.relayed").count()).isEqualTo(3.0);
+        verify(outboxRepository).claim(eq(List.of(1L, 2L)), any(Instant.class));
+        verify(outboxRepository).claim(eq(List.of(3L)), any(Instant.class));
+    }
+
+    @Test
+    void relay_whenPublishFails_shouldKeepEventsInOutbox() {
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(true));
+        when(outboxRepository.findOldest(BATCH_SIZE))
+                .thenReturn(Flux.just(outboxEvent(1L)));
+        when(userEventPublisher.publishAll(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("broker down")));
+        when(outboxRepository.releaseClaim(List.of(1L)))
+                .thenReturn(Mono.just(1));
+        when(outboxRepository.deleteAllById(anyList()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        assertThat(meterRegistry.counter("user.outbox.relayed").count()).isZero();
+        verify(outboxRepository).releaseClaim(List.of(1L));
+    }
+
+    @Test
+    void relay_whenAnotherReplicaIsPublishingTheHead_shouldSkip() {
+        OutboxEvent claimed = outboxEvent(1L);
+        claimed.setClaimedUntil(Instant.now().plusSeconds(60));
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(true));
+        when(outboxRepository.findOldest(BATCH_SIZE))
+                .thenReturn(Flux.just(claimed, outboxEvent(2L)));
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        verify(outboxRepository, never()).claim(anyCollection(), any(Instant.class));
+        verifyNoInteractions(userEventPublisher);
+    }
+
+    @Test
+    void relay_whenAClaimHasExpired_shouldTakeTheBatchOver() {
+        OutboxEvent abandoned = outboxEvent(1L);
+        abandoned.setClaimedUntil(Instant.now().minusSeconds(1));
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(true));
+        when(outboxRepository.findOldest(BATCH_SIZE))
+                .thenReturn(Flux.just(abandoned));
+        when(userEventPublisher.publishAll(anyList()))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteAllById(List.of(1L)))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        verify(outboxRepository).claim(eq(List.of(1L)), any(Instant.class));
+        assertThat(meterRegistry.counter("user.outbox.relayed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void relay_whenAnotherReplicaHoldsTheLock_shouldSkip() {
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        verify(outboxRepository, never()).findOldest(BATCH_SIZE);
+        verifyNoInteractions(userEventPublisher);
+    }
+
+    @Test
+    void relay_withoutTheLock_shouldStillReportTheLag() {
+        OutboxEvent oldest = outboxEvent(1L);
+        oldest.setOccurredAt(Instant.now().minusSeconds(60));
+        when(outboxRepository.tryAdvisoryXactLock(OutboxRelay.RELAY_LOCK_KEY))
+                .thenReturn(Mono.just(false));
+        when(outboxRepository.findOldest(1))
+                .thenReturn(Flux.just(oldest));
+
+        StepVerifier.create(relay.relay())
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("user.outbox.lag").gauge().value()).isBetween(60.0, 70.0);
+    }
+
+    private OutboxEvent outboxEvent(long id) {
+        return OutboxEvent.builder()
+                .id(id)
+                .eventId(UUID.randomUUID())
+                .eventType(UserEvent.EventType.USER_CREATED)
+                .userId(UUID.randomUUID())
+                .username("user" + id)
+                .occurredAt(Instant.now())
+                .build();
+    }
+}
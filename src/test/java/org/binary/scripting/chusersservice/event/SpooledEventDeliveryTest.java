@@ -0,0 +1,67 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SpooledEventDeliveryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void constructor_withoutDirectory_shouldRefuseToStart() {
+        assertThatThrownBy(() -> delivery(""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.events.spool.directory");
+    }
+
+    @Test
+    void constructor_withDirectory_shouldOpenTheJournalThere() throws IOException {
+        delivery(directory.toString()).close();
+
+        assertThat(directory.resolve("checkpoint")).exists();
+    }
+
+    @Test
+    void deliver_shouldAppendOnTheJournalThreadAndReplayToKafka() throws IOException {
+        UserEventPublisher publisher = mock(UserEventPublisher.class);
+        when(publisher.publishAll(anyList())).thenReturn(Mono.empty());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SpooledEventDelivery delivery = new SpooledEventDelivery(publisher, JsonMapper.builder().build(), registry,
+                directory.toString(), DataSize.ofKilobytes(4), 500, true);
+        List<UserEvent> events = List.of(UserEvent.deleted(UUID.randomUUID()), UserEvent.deleted(UUID.randomUUID()));
+
+        StepVerifier.create(delivery.deliver(events).then(Mono.fromCallable(() -> Thread.currentThread().getName())))
+                .assertNext(thread -> assertThat(thread).startsWith("user-events-journal-"))
+                .verifyComplete();
+        assertThat(registry.get("user.events.spool.depth").gauge().value()).isEqualTo(2.0);
+
+        StepVerifier.create(delivery.replay()).verifyComplete();
+
+        verify(publisher).publishAll(events);
+        assertThat(registry.get("user.events.spool.depth").gauge().value()).isZero();
+        delivery.close();
+    }
+
+    private static SpooledEventDelivery delivery(String directory) throws IOException {
+        return new SpooledEventDelivery(mock(UserEventPublisher.class), JsonMapper.builder().build(),
+                new SimpleMeterRegistry(), directory, DataSize.ofKilobytes(4), 500, false);
+    }
+}
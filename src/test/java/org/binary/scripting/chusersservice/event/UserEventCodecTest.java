@@ -0,0 +1,113 @@
+package org.binary.scripting.chusersservice.event;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.binary.scripting.chusersservice.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserEventCodecTest {
+
+    private static final String TOPIC = "user-events";
+    private static final Map<String, Object> JSON_CONFIGS = Map.of(
+            "spring.json.type.mapping", "userEvent:org.binary.scripting.chusersservice.event.UserEvent",
+            "spring.json.trusted.packages", "org.binary.scripting.chusersservice.event");
+
+    @Test
+    void decode_shouldRestoreEncodedEvent() {
+        UserEvent event = UserEvent.of(UserEvent.EventType.USER_UPDATED, User.builder()
+                .id(UUID.randomUUID())
+                .username("jürgen")
+                .email("jurgen@example.com")
+                .firstName("Jürgen")
+                .lastName("Doe")
+                .mobileNumber("+1234567890")
+                .build());
+
+        assertThat(UserEventCodec.decode(UserEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void decode_shouldRestoreNullFields() {
+        UserEvent event = UserEvent.deleted(UUID.randomUUID());
+
+        assertThat(UserEventCodec.decode(UserEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void decode_whenVersionIsUnknown_shouldFail() {
+        byte[] encoded = UserEventCodec.encode(UserEvent.deleted(UUID.randomUUID()));
+        encoded[0] = 2;
+
+        assertThatThrownBy(() -> UserEventCodec.decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deserializer_shouldReadBothFormatsByContentType() {
+        UserEvent event = UserEvent.of(UserEvent.EventType.USER_CREATED, User.builder()
+                .id(UUID.randomUUID())
+                .username("testuser")
+                .email("test@example.com")
+                .build());
+
+        try (UserEventSerializer binarySerializer = serializer("binary");
+             UserEventSerializer jsonSerializer = serializer("json");
+             UserEventDeserializer deserializer = new UserEventDeserializer()) {
+            deserializer.configure(JSON_CONFIGS, false);
+
+            RecordHeaders binaryHeaders = new RecordHeaders();
+            byte[] binary = binarySerializer.serialize(TOPIC, binaryHeaders, event);
+            RecordHeaders jsonHeaders = new RecordHeaders();
+            byte[] json = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+
+            assertThat(contentType(binaryHeaders)).isEqualTo(UserEventCodec.CONTENT_TYPE);
+            assertThat(contentType(jsonHeaders)).isEqualTo("application/json");
+            assertThat(binary.length).isLessThan(json.length / 2);
+            assertThat(deserializer.deserialize(TOPIC, binaryHeaders, binary)).isEqualTo(event);
+            assertThat(deserializer.deserialize(TOPIC, jsonHeaders, json)).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void deserializer_shouldReadJsonWrittenByTheJackson2Serializer() {
+        UUID eventId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        // As the previous JsonSerializer wrote it: numeric timestamp and a __TypeId__ header, no content type
+        String json = "{\"eventId\":\"" + eventId + "\",\"eventType\":\"USER_DELETED\",\"timestamp\":1700000000.123456789,"
+                + "\"payload\":{\"userId\":\"" + userId + "\",\"username\":null,\"email\":null,\"firstName\":null,"
+                + "\"lastName\":null,\"mobileNumber\":null}}";
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("__TypeId__", "userEvent".getBytes(StandardCharsets.UTF_8));
+
+        try (UserEventDeserializer deserializer = new UserEventDeserializer()) {
+            deserializer.configure(JSON_CONFIGS, false);
+
+            UserEvent event = deserializer.deserialize(TOPIC, headers, json.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(event.getEventId()).isEqualTo(eventId);
+            assertThat(event.getEventType()).isEqualTo(UserEvent.EventType.USER_DELETED);
+            assertThat(event.getTimestamp()).isEqualTo(Instant.ofEpochSecond(1_700_000_000L, 123_456_789));
+            assertThat(event.getPayload().getUserId()).isEqualTo(userId);
+        }
+    }
+
+    private static UserEventSerializer serializer(String format) {
+        UserEventSerializer serializer = new UserEventSerializer();
+        Map<String, Object> configs = new HashMap<>(JSON_CONFIGS);
+        configs.put(UserEventSerializer.FORMAT_CONFIG, format);
+        serializer.configure(configs, false);
+        return serializer;
+    }
+
+    private static String contentType(RecordHeaders headers) {
+        return new String(headers.lastHeader(UserEventSerializer.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
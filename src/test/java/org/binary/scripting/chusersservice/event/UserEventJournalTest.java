@@ -0,0 +1,120 @@
+package org.binary.scripting.chusersservice.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserEventJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void peek_shouldReturnAppendedEventsInOrderUntilAdvanced() throws IOException {
+        UserEventJournal journal = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+        List<UserEvent> events = events(3);
+        journal.append(events);
+
+        UserEventJournal.Batch first = journal.peek(2);
+        assertThat(first.events()).isEqualTo(events.subList(0, 2));
+        assertThat(journal.peek(2).events()).isEqualTo(first.events());
+
+        journal.advance(first);
+        assertThat(journal.depth()).isEqualTo(1);
+        assertThat(journal.peek(10).events()).containsExactly(events.get(2));
+    }
+
+    @Test
+    void append_shouldRotateSegmentsAndDeleteThemOnceReplayed() throws IOException {
+        UserEventJournal journal = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+        List<UserEvent> events = events(20);
+        journal.append(events);
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        UserEventJournal.Batch all = journal.peek(100);
+        assertThat(all.events()).isEqualTo(events);
+        journal.advance(all);
+
+        assertThat(journal.depth()).isZero();
+        assertThat(journal.segments()).isEqualTo(1);
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void reopen_shouldResumeFromCheckpoint() throws IOException {
+        List<UserEvent> events = events(20);
+        UserEventJournal journal = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+        journal.append(events);
+        journal.advance(journal.peek(5));
+        journal.close();
+
+        UserEventJournal reopened = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+
+        assertThat(reopened.depth()).isEqualTo(15);
+        assertThat(reopened.peek(100).events()).isEqualTo(events.subList(5, 20));
+    }
+
+    @Test
+    void reopen_withSync_shouldResumeFromCheckpointWithoutClose() throws IOException {
+        List<UserEvent> events = events(20);
+        UserEventJournal journal = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, true);
+        journal.append(events.subList(0, 3));
+        // Rotates part-way through, so the forced range starts over in the new segment
+        journal.append(events.subList(3, 20));
+        journal.advance(journal.peek(5));
+
+        UserEventJournal reopened = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, true);
+
+        assertThat(reopened.depth()).isEqualTo(15);
+        assertThat(reopened.peek(100).events()).isEqualTo(events.subList(5, 20));
+    }
+
+    @Test
+    void reopen_shouldDropTornRecordAndAppendAfterLastGoodOne() throws IOException {
+        List<UserEvent> events = events(2);
+        UserEventJournal journal = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+        journal.append(events);
+        journal.close();
+        try (RandomAccessFile segment = new RandomAccessFile(segmentFiles().getFirst().toFile(), "rw")) {
+            // Corrupt the last payload byte of the second record
+            int firstRecord = 8 + segment.readInt();
+            segment.seek(firstRecord);
+            int secondLength = segment.readInt();
+            segment.seek(firstRecord + 8 + secondLength - 1);
+            segment.write(0);
+        }
+
+        UserEventJournal reopened = new UserEventJournal(directory, SEGMENT_SIZE, jsonMapper, false);
+        UserEvent next = UserEvent.deleted(UUID.randomUUID());
+        reopened.append(List.of(next));
+
+        assertThat(reopened.peek(10).events()).containsExactly(events.getFirst(), next);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static List<UserEvent> events(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> UserEvent.deleted(UUID.randomUUID()))
+                .toList();
+    }
+}
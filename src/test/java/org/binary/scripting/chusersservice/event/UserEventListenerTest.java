@@ -0,0 +1,62 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.binary.scripting.chusersservice.service.UserAvailabilityFilter;
+import org.binary.scripting.chusersservice.service.UserCache;
+import org.binary.scripting.chusersservice.service.UserSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class UserEventListenerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("user-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("user-events", 1);
+
+    @Test
+    void onPartitionsAssigned_shouldReplayFromBeforeStartup() {
+        long before = System.currentTimeMillis();
+        UserEventListener listener = listener(Duration.ofMinutes(1));
+        long after = System.currentTimeMillis();
+        ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+
+        listener.onPartitionsAssigned(Map.of(P0, 10L), callback);
+
+        verify(callback).seekToTimestamp(eq(List.of(P0)),
+                longThat(timestamp -> timestamp >= before - 60_000 && timestamp <= after - 60_000));
+    }
+
+    @Test
+    void onPartitionsAssigned_afterRebalance_shouldOnlyReplayNewPartitions() {
+        UserEventListener listener = listener(Duration.ofMinutes(1));
+        listener.onPartitionsAssigned(Map.of(P0, 10L), mock(ConsumerSeekCallback.class));
+        ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+
+        listener.onPartitionsAssigned(Map.of(P0, 25L, P1, 0L), callback);
+        listener.onPartitionsAssigned(Map.of(P0, 30L, P1, 5L), callback);
+
+        verify(callback).seekToTimestamp(eq(List.of(P1)), anyLong());
+        verifyNoMoreInteractions(callback);
+    }
+
+    private static UserEventListener listener(Duration replayMargin) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserRepository repository = mock(UserRepository.class);
+        return new UserEventListener(new UserCache(meterRegistry, 100, Duration.ofMinutes(5)),
+                new UserSearchIndex(repository, meterRegistry, 500),
+                new UserAvailabilityFilter(repository, meterRegistry, 100, 0.01, false, 500),
+                replayMargin);
+    }
+}
@@ -0,0 +1,188 @@
+package org.binary.scripting.chusersservice.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@EmbeddedKafka(partitions = 3, topics = UserEventPublisherTest.TOPIC)
+class UserEventPublisherTest {
+
+    static final String TOPIC = "user-events-test";
+
+    private SimpleMeterRegistry meterRegistry;
+    private DefaultKafkaProducerFactory<String, UserEvent> producerFactory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishAll_shouldBoundSendsAwaitingAcknowledgement() {
+        KafkaTemplate<String, UserEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        CompletableFuture<SendResult<String, UserEvent>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(UserEvent.class)))
+                .thenReturn(pending);
+        UserEventPublisher publisher = new UserEventPublisher(kafkaTemplate, meterRegistry, TOPIC, 2, false);
+
+        Disposable publish = publisher.publishAll(events(5)).subscribe();
+
+        verify(kafkaTemplate, timeout(5_000).times(2)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+        verify(kafkaTemplate, after(100).times(2)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+        assertThat(meterRegistry.get("user.events.send.inflight").gauge().value()).isEqualTo(2.0);
+        publish.dispose();
+        assertThat(meterRegistry.get("user.events.send.inflight").gauge().value()).isZero();
+        publisher.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishAll_shouldBoundSendsAwaitingAcknowledgementAcrossCalls() {
+        KafkaTemplate<String, UserEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        List<CompletableFuture<SendResult<String, UserEvent>>> sends = new CopyOnWriteArrayList<>();
+        AtomicReference<Double> maxInFlight = new AtomicReference<>(0.0);
+        UserEventPublisher publisher = new UserEventPublisher(kafkaTemplate, meterRegistry, TOPIC, 3, false);
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(UserEvent.class)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(meterRegistry.get("user.events.send.inflight").gauge().value(), Math::max);
+                    CompletableFuture<SendResult<String, UserEvent>> send = new CompletableFuture<>();
+                    sends.add(send);
+                    return send;
+                });
+
+        // Separate calls, as sync-ack and async-after-commit make one per request
+        List<CompletableFuture<Void>> publishes = IntStream.range(0, 4)
+                .mapToObj(i -> publisher.publishAll(events(5)).toFuture())
+                .toList();
+        verify(kafkaTemplate, timeout(5_000).times(3)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+        verify(kafkaTemplate, after(100).times(3)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+        for (int acknowledged = 0; acknowledged < 20; acknowledged++) {
+            int next = acknowledged;
+            await(() -> sends.size() > next);
+            sends.get(next).complete(null);
+        }
+
+        assertThat(CompletableFuture.allOf(publishes.toArray(CompletableFuture[]::new))).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(sends).hasSize(20);
+        assertThat(maxInFlight.get()).isEqualTo(3.0);
+        publisher.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishAll_shouldSendOnItsOwnThreadEvenWhenAnAckReleasesTheNextRecord() {
+        KafkaTemplate<String, UserEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        List<String> sendingThreads = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<SendResult<String, UserEvent>>> sends = new CopyOnWriteArrayList<>();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(UserEvent.class)))
+                .thenAnswer(invocation -> {
+                    sendingThreads.add(Thread.currentThread().getName());
+                    CompletableFuture<SendResult<String, UserEvent>> send = new CompletableFuture<>();
+                    sends.add(send);
+                    return send;
+                });
+        UserEventPublisher publisher = new UserEventPublisher(kafkaTemplate, meterRegistry, TOPIC, 1, false);
+
+        Disposable publish = publisher.publishAll(events(2)).subscribe();
+        verify(kafkaTemplate, timeout(5_000).times(1)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+        // Acknowledge from this thread, standing in for the producer's I/O thread
+        sends.getFirst().complete(null);
+        verify(kafkaTemplate, timeout(5_000).times(2)).send(eq(TOPIC), anyString(), any(UserEvent.class));
+
+        assertThat(sendingThreads).hasSize(2).allMatch(name -> name.startsWith("user-events-send"));
+        publish.dispose();
+        publisher.close();
+    }
+
+    @Test
+    void publishAll_shouldDeliverEveryEventWithoutTheSharedElasticPool(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        UserEventPublisher publisher = new UserEventPublisher(new KafkaTemplate<>(producerFactory), meterRegistry, TOPIC, 256, false);
+        int eventCount = 5_000;
+        Set<String> elasticThreadsBefore = elasticThreads();
+
+        StepVerifier.create(publisher.publishAll(events(eventCount)))
+                .expectComplete()
+                .verify(Duration.ofSeconds(60));
+
+        assertThat(elasticThreads()).isEqualTo(elasticThreadsBefore);
+        publisher.close();
+        assertThat(meterRegistry.get("user.events.send").tag("result", "success").timer().count()).isEqualTo(eventCount);
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(broker, "publisher-test", false);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+            assertThat(KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(30), eventCount).count())
+                    .isEqualTo(eventCount);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static List<UserEvent> events(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> UserEvent.deleted(UUID.randomUUID()))
+                .toList();
+    }
+
+    private static Set<String> elasticThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("boundedElastic"))
+                .collect(Collectors.toSet());
+    }
+}
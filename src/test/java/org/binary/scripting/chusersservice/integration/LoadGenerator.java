@@ -0,0 +1,141 @@
+package org.binary.scripting.chusersservice.integration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Drives a request supplier in a closed loop (a fixed number of callers, each sending its next request
+ * when the last one returns) or an open loop (a fixed arrival rate regardless of response times) and
+ * records latency in an HDR histogram. Open-loop latency is measured from each request's scheduled start,
+ * so time spent queued behind a slow server is counted rather than hidden (coordinated omission).
+ * <p>
+ * While a run is in progress the R2DBC pool gauges are sampled to report how close the pool came to
+ * saturation.
+ */
+final class LoadGenerator {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+
+    LoadGenerator(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    record Result(String name, Histogram latency, long errors, Duration elapsed, double maxAcquired, double maxPending) {
+
+        long requests() {
+            return latency.getTotalCount();
+        }
+
+        double requestsPerSecond() {
+            return requests() / (elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        double errorRate() {
+            return requests() == 0 ? 0 : (double) errors / requests();
+        }
+
+        static String header() {
+            return "%-28s %9s %7s %9s %8s %8s %8s %8s %8s %10s".formatted(
+                    "workload", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "pool a/p");
+        }
+
+        String row() {
+            return "%-28s %9d %7d %9.0f %8.2f %8.2f %8.2f %8.2f %8.2f %5.0f/%-4.0f".formatted(
+                    name, requests(), errors, requestsPerSecond(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()), maxAcquired, maxPending);
+        }
+
+        void writeHistogram(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+                latency.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    Result closedLoop(String name, int callers, Duration duration, Supplier<Mono<?>> request) {
+        Run run = new Run();
+        long deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, callers)
+                .flatMap(caller -> Mono.defer(() -> run.time(request.get(), System.nanoTime()))
+                        .repeat(() -> System.nanoTime() < deadline), callers)
+                .blockLast();
+        return run.finish(name);
+    }
+
+    Result openLoop(String name, int requestsPerSecond, Duration duration, Supplier<Mono<?>> request) {
+        Run run = new Run();
+        long start = System.nanoTime();
+        double intervalNanos = 1_000_000_000.0 / requestsPerSecond;
+        long total = (long) (duration.toNanos() / intervalNanos);
+        // Tick every millisecond and release every request whose scheduled start has passed
+        AtomicLong released = new AtomicLong();
+        Flux.interval(Duration.ofMillis(1))
+                .onBackpressureDrop()
+                .map(tick -> Math.min(total, (long) ((System.nanoTime() - start) / intervalNanos) + 1))
+                .takeUntil(due -> due >= total)
+                .concatMap(due -> Flux.fromStream(LongStream.range(released.getAndSet(due), due).boxed()))
+                .flatMap(index -> run.time(request.get(), start + (long) (index * intervalNanos)), Integer.MAX_VALUE)
+                .blockLast();
+        return run.finish(name);
+    }
+
+    private final class Run {
+
+        private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final long start = System.nanoTime();
+        private volatile double maxAcquired;
+        private volatile double maxPending;
+        private final Disposable poolSampler = Flux.interval(Duration.ofMillis(50))
+                .subscribe(tick -> samplePool());
+
+        Mono<Void> time(Mono<?> request, long scheduledStart) {
+            return request
+                    .then()
+                    .onErrorResume(error -> {
+                        errors.incrementAndGet();
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> latency.recordValue(Math.min(System.nanoTime() - scheduledStart, MAX_LATENCY_NANOS)));
+        }
+
+        Result finish(String name) {
+            poolSampler.dispose();
+            return new Result(name, latency, errors.get(), Duration.ofNanos(System.nanoTime() - start), maxAcquired, maxPending);
+        }
+
+        private void samplePool() {
+            maxAcquired = Math.max(maxAcquired, gauge("r2dbc.pool.acquired"));
+            maxPending = Math.max(maxPending, gauge("r2dbc.pool.pending"));
+        }
+
+        private double gauge(String name) {
+            Gauge gauge = meterRegistry.find(name).gauge();
+            return gauge != null ? gauge.value() : 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.binary.scripting.chusersservice.integration;
+
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares rows/s of {@code POST /v1/users} called once per user against {@code POST /v1/users/batch}.
+ * Needs the same Postgres as {@link UserIntegrationTest}; run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserBatchBenchmarkTest {
+
+    private static final int ROWS = 2_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll().block();
+        outboxRepository.deleteAll().block();
+    }
+
+    @Test
+    void batchCreateShouldOutperformSingleCreates() {
+        // Warm up both paths so JIT and pool warm-up don't skew the first measurement
+        createOneByOne(users("warmup-single", 200));
+        createInBatches(users("warmup-batch", 200));
+
+        double singleRowsPerSecond = createOneByOne(users("single", ROWS));
+        double batchRowsPerSecond = createInBatches(users("batch", ROWS));
+
+        System.out.printf("POST /v1/users        : %,.0f rows/s%n", singleRowsPerSecond);
+        System.out.printf("POST /v1/users/batch  : %,.0f rows/s (batch size %d)%n", batchRowsPerSecond, BATCH_SIZE);
+        System.out.printf("speed-up              : %.1fx%n", batchRowsPerSecond / singleRowsPerSecond);
+
+        assertThat(batchRowsPerSecond).isGreaterThan(singleRowsPerSecond);
+    }
+
+    private double createOneByOne(List<User> users) {
+        long start = System.nanoTime();
+        for (User user : users) {
+            webTestClient.post()
+                    .uri("/v1/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(user)
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        return rowsPerSecond(users.size(), start);
+    }
+
+    private double createInBatches(List<User> users) {
+        long start = System.nanoTime();
+        for (int from = 0; from < users.size(); from += BATCH_SIZE) {
+            webTestClient.post()
+                    .uri("/v1/users/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(users.subList(from, Math.min(from + BATCH_SIZE, users.size())))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(UserBatchResult.class);
+        }
+        return rowsPerSecond(users.size(), start);
+    }
+
+    private static double rowsPerSecond(int rows, long startNanos) {
+        return rows / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+
+    private static List<User> users(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> User.builder()
+                        .username(prefix + i)
+                        .email(prefix + i + "@example.com")
+                        .firstName("First" + i)
+                        .lastName("Last" + i)
+                        .build())
+                .toList();
+    }
+}
@@ -1,24 +1,43 @@
 package org.binary.scripting.chusersservice.integration;
 
+import org.binary.scripting.chusersservice.controller.UserJsonEncoder;
 import org.binary.scripting.chusersservice.entity.User;
-import org.binary.scripting.chusersservice.event.UserEventPublisher;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
+import org.binary.scripting.chusersservice.entity.OutboxEvent;
+import org.binary.scripting.chusersservice.event.UserEvent;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
 import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.binary.scripting.chusersservice.service.UserStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.JacksonJsonEncoder;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.reactive.server.WebTestClient;
-import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient
@@ -31,18 +50,22 @@ class UserIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
-    @MockitoBean
-    private UserEventPublisher userEventPublisher;
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserStatistics userStatistics;
+
+    @Autowired
+    private ServerCodecConfigurer serverCodecConfigurer;
 
     @BeforeEach
     void setUp() {
         userRepository.deleteAll().block();
-        when(userEventPublisher.publishUserCreated(any(User.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(userEventPublisher.publishUserUpdated(any(User.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(userEventPublisher.publishUserDeleted(any(UUID.class)))
-                .thenReturn(Mono.empty());
+        outboxRepository.deleteAll().block();
     }
 
     @Test
@@ -86,6 +109,15 @@ class UserIntegrationTest {
                     assertThat(user.getLastName()).isEqualTo("Test");
                     assertThat(user.getMobileNumber()).isEqualTo("+1234567890");
                 });
+
+        // Event recorded in the outbox alongside the row
+        assertThat(outboxRepository.findAll().collectList().block())
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getEventType()).isEqualTo(UserEvent.EventType.USER_CREATED);
+                    assertThat(event.getUserId()).isEqualTo(createdUser.getId());
+                    assertThat(event.getUsername()).isEqualTo("integrationuser");
+                });
     }
 
     @Test
@@ -125,6 +157,94 @@ class UserIntegrationTest {
                 });
     }
 
+    @Test
+    void shouldRevalidateAndRejectStaleIfMatch() {
+        User initialUser = userRepository.save(
+                User.builder()
+                        .username("conditional")
+                        .email("conditional@example.com")
+                        .build()
+        ).block();
+
+        assertThat(initialUser).isNotNull();
+
+        String etag = webTestClient.get()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + initialUser.getId() + "-0\"")
+                .returnResult(User.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.put()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(User.builder().username("conditional").email("conditional@example.com").firstName("First").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + initialUser.getId() + "-1\"");
+
+        // The first writer moved the version on, so a second writer holding the same ETag loses
+        webTestClient.put()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(User.builder().username("conditional").email("conditional@example.com").firstName("Second").build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.get()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .value(user -> assertThat(user.getFirstName()).isEqualTo("First"));
+    }
+
+    @Test
+    void shouldPatchOnlyProvidedFields() {
+        User initialUser = userRepository.save(
+                User.builder()
+                        .username("patchme")
+                        .email("patch@example.com")
+                        .firstName("Original")
+                        .lastName("Name")
+                        .build()
+        ).block();
+
+        assertThat(initialUser).isNotNull();
+
+        webTestClient.patch()
+                .uri("/v1/users/{id}", initialUser.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastName\":\"Patched\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .value(user -> {
+                    assertThat(user.getUsername()).isEqualTo("patchme");
+                    assertThat(user.getFirstName()).isEqualTo("Original");
+                    assertThat(user.getLastName()).isEqualTo("Patched");
+                    assertThat(user.getModifiedAt()).isAfterOrEqualTo(user.getCreatedAt());
+                });
+
+        webTestClient.patch()
+                .uri("/v1/users/{id}", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastName\":\"Nobody\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     void shouldDeleteUser() {
         // Create user to delete
@@ -148,6 +268,9 @@ class UserIntegrationTest {
                 .uri("/v1/users/{id}", userToDelete.getId())
                 .exchange()
                 .expectStatus().isNotFound();
+
+        assertThat(outboxRepository.findAll().map(OutboxEvent::getEventType).collectList().block())
+                .containsExactly(UserEvent.EventType.USER_DELETED);
     }
 
     @Test
@@ -165,24 +288,400 @@ class UserIntegrationTest {
         }
 
         // Get first page
-        webTestClient.get()
+        List<User> firstPage = webTestClient.get()
                 .uri("/v1/users?page=0&size=10")
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus().isOk()
                 .expectBodyList(User.class)
-                .hasSize(10);
+                .hasSize(10)
+                .returnResult()
+                .getResponseBody();
 
         // Get second page
-        webTestClient.get()
+        List<User> secondPage = webTestClient.get()
                 .uri("/v1/users?page=1&size=10")
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus().isOk()
                 .expectBodyList(User.class)
+                .hasSize(5)
+                .returnResult()
+                .getResponseBody();
+
+        // Pages follow creation order, so together they hold every user exactly once
+        List<String> created = IntStream.range(0, 15).mapToObj(i -> "user" + i).toList();
+        assertThat(Stream.concat(firstPage.stream(), secondPage.stream()).map(User::getUsername)).containsExactlyElementsOf(created);
+
+        // The same with a field selection, which takes the hand-written query
+        List<User> selected = new ArrayList<>();
+        for (int page = 0; page < 2; page++) {
+            selected.addAll(webTestClient.get()
+                    .uri("/v1/users?page={page}&size=10&fields=username", page)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(User.class)
+                    .returnResult()
+                    .getResponseBody());
+        }
+        assertThat(selected).extracting(User::getUsername).containsExactlyElementsOf(created);
+    }
+
+    @Test
+    void shouldWalkAllUsersWithKeysetCursor() {
+        for (int i = 0; i < 15; i++) {
+            userRepository.save(
+                    User.builder()
+                            .username("keyset" + i)
+                            .email("keyset" + i + "@example.com")
+                            .build()
+            ).block();
+        }
+
+        // First page
+        String cursor = webTestClient.get()
+                .uri("/v1/users?cursor=&size=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class)
+                .hasSize(10)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst("X-Next-Cursor");
+
+        assertThat(cursor).isNotNull();
+
+        // Second and last page
+        webTestClient.get()
+                .uri("/v1/users?cursor={cursor}&size=10", cursor)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(User.class)
                 .hasSize(5);
     }
 
+    @Test
+    void shouldReturnOnlySelectedFields() {
+        User saved = userRepository.save(
+                User.builder()
+                        .username("sparse")
+                        .email("sparse@example.com")
+                        .firstName("Sparse")
+                        .build()
+        ).block();
+
+        assertThat(saved).isNotNull();
+
+        webTestClient.get()
+                .uri("/v1/users?fields=id,username")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("[{\"id\":\"" + saved.getId() + "\",\"username\":\"sparse\"}]", JsonCompareMode.STRICT);
+
+        webTestClient.get()
+                .uri("/v1/users?cursor=&fields=email")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("[{\"email\":\"sparse@example.com\"}]", JsonCompareMode.STRICT);
+
+        webTestClient.get()
+                .uri("/v1/users/{id}?fields=firstName,modifiedAt", saved.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Sparse")
+                .jsonPath("$.modifiedAt").exists()
+                .jsonPath("$.id").doesNotExist()
+                .jsonPath("$.email").doesNotExist();
+    }
+
+    @Test
+    void shouldWriteUsersWithUserJsonEncoderAheadOfJackson() {
+        List<Object> encoders = serverCodecConfigurer.getWriters().stream()
+                .filter(EncoderHttpMessageWriter.class::isInstance)
+                .map(writer -> (Object) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .toList();
+
+        assertThat(encoders).hasAtLeastOneElementOfType(UserJsonEncoder.class);
+        assertThat(encoders.indexOf(encoders.stream().filter(UserJsonEncoder.class::isInstance).findFirst().orElseThrow()))
+                .isLessThan(encoders.indexOf(encoders.stream().filter(JacksonJsonEncoder.class::isInstance).findFirst().orElseThrow()));
+    }
+
+    @Test
+    void shouldStreamAllUsersAsNdjson() {
+        for (int i = 0; i < 25; i++) {
+            userRepository.save(
+                    User.builder()
+                            .username("stream" + i)
+                            .email("stream" + i + "@example.com")
+                            .build()
+            ).block();
+        }
+
+        webTestClient.get()
+                .uri("/v1/users/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(User.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(25)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCreateAndUpdateUsersInBatch() {
+        List<User> newUsers = List.of(
+                User.builder().username("batch0").email("batch0@example.com").firstName("Zero").build(),
+                User.builder().email("missing-username@example.com").build(),
+                User.builder().username("batch2").email("batch2@example.com").build());
+
+        List<UserBatchResult> created = webTestClient.post()
+                .uri("/v1/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUsers)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserBatchResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(created).extracting(UserBatchResult::status)
+                .containsExactly(UserBatchResult.Status.CREATED, UserBatchResult.Status.INVALID, UserBatchResult.Status.CREATED);
+        User first = created.get(0).user();
+        assertThat(first.getFirstName()).isEqualTo("Zero");
+        assertThat(first.getCreatedAt()).isNotNull();
+        assertThat(userRepository.count().block()).isEqualTo(2);
+
+        first.setUsername("batch0-renamed");
+        List<User> updates = List.of(first, User.builder().id(UUID.randomUUID()).username("ghost").build());
+
+        webTestClient.put()
+                .uri("/v1/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updates)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserBatchResult.class)
+                .value(results -> assertThat(results).extracting(UserBatchResult::status)
+                        .containsExactly(UserBatchResult.Status.UPDATED, UserBatchResult.Status.NOT_FOUND));
+
+        assertThat(userRepository.findById(first.getId()).block().getUsername()).isEqualTo("batch0-renamed");
+        assertThat(outboxRepository.findAll().map(OutboxEvent::getEventType).collectList().block())
+                .containsExactlyInAnyOrder(UserEvent.EventType.USER_CREATED, UserEvent.EventType.USER_CREATED,
+                        UserEvent.EventType.USER_UPDATED);
+    }
+
+    @Test
+    void shouldLookUpManyUsersById() {
+        List<User> saved = userRepository.saveAll(List.of(
+                User.builder().username("lookup0").email("lookup0@example.com").build(),
+                User.builder().username("lookup1").email("lookup1@example.com").build(),
+                User.builder().username("lookup2").email("lookup2@example.com").build()))
+                .collectList()
+                .block();
+        List<UUID> ids = List.of(saved.get(0).getId(), saved.get(2).getId(), UUID.randomUUID(), saved.get(0).getId());
+
+        webTestClient.post()
+                .uri("/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ids)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class)
+                .value(users -> assertThat(users).extracting(User::getUsername)
+                        .containsExactlyInAnyOrder("lookup0", "lookup2"));
+    }
+
+    @Test
+    void shouldFindUserByUsernameAndEmailIgnoringCase() {
+        User saved = userRepository.save(User.builder().username("CaseUser").email("Case.User@example.com").build()).block();
+
+        webTestClient.get()
+                .uri("/v1/users/by-username/{username}", "caseuser")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .value(user -> assertThat(user.getId()).isEqualTo(saved.getId()));
+
+        webTestClient.get()
+                .uri("/v1/users/by-email/{email}", "CASE.USER@EXAMPLE.COM")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .value(user -> assertThat(user.getId()).isEqualTo(saved.getId()));
+
+        webTestClient.get()
+                .uri("/v1/users/by-email/{email}", "someone.else@example.com")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldRejectUsernameThatDiffersOnlyInCase() {
+        userRepository.save(User.builder().username("taken").email("taken@example.com").build()).block();
+
+        webTestClient.post()
+                .uri("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(User.builder().username("TAKEN").email("other@example.com").build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        StepVerifier.create(userRepository.count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReportUsernameTakenOnceCreated() {
+        webTestClient.head()
+                .uri("/v1/users/availability?username=newcomer")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(User.builder().username("newcomer").email("newcomer@example.com").build())
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/v1/users/availability?username=NewComer&email=someone@example.com")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.usernameAvailable").isEqualTo(false)
+                .jsonPath("$.emailAvailable").isEqualTo(true);
+    }
+
+    @Test
+    void shouldSearchUsersByPrefix() {
+        User created = webTestClient.post()
+                .uri("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(User.builder().username("autocomplete").email("autocomplete@example.com").firstName("Ada").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .returnResult()
+                .getResponseBody();
+
+        webTestClient.get()
+                .uri("/v1/users/search?prefix=AutoComp")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserSuggestion.class)
+                .value(suggestions -> assertThat(suggestions).extracting(UserSuggestion::id)
+                        .containsExactly(created.getId()));
+
+        webTestClient.delete()
+                .uri("/v1/users/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/v1/users/search?prefix=autocomp")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserSuggestion.class)
+                .hasSize(0);
+    }
+
+    @Test
+    void shouldServeStatsFromMemoryAndReconcileWithTheTable() {
+        // Reseed after setUp emptied the table; empty means a reconcile (e.g. the startup seed) is still running
+        userStatistics.reconcile()
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .block();
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+        List<UUID> ids = new ArrayList<>();
+        for (String username : List.of("statsone", "statstwo")) {
+            ids.add(webTestClient.post()
+                    .uri("/v1/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(User.builder().username(username).email(username + "@example.com").build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(User.class)
+                    .returnResult()
+                    .getResponseBody()
+                    .getId());
+        }
+        webTestClient.delete()
+                .uri("/v1/users/{id}", ids.getFirst())
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/v1/users/stats")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").isEqualTo(1)
+                .jsonPath("$.totalEstimated").isEqualTo(false)
+                .jsonPath("$.signupsPerDay.length()").isEqualTo(30)
+                .jsonPath("$.signupsPerDay[29].day").isEqualTo(today)
+                .jsonPath("$.signupsPerDay[29].signups").isEqualTo(2);
+
+        assertThat(userStatistics.reconcile().block().signupsPerDay().getLast().signups()).isEqualTo(1);
+        webTestClient.get()
+                .uri("/v1/users/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordServiceAndQueryTimers() {
+        webTestClient.get()
+                .uri("/v1/users/by-username/{username}", "metrics")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        assertThat(meterRegistry.get("user.service.operation").tags("operation", "findByUsername").timer().count()).isPositive();
+        assertThat(meterRegistry.get("r2dbc.query").timers()).isNotEmpty();
+    }
+
+    @Test
+    void shouldClaimAndReleaseOutboxEvents() {
+        userRepository.save(User.builder().username("claimed").build())
+                .flatMap(user -> outboxRepository.insertAll(List.of(OutboxEvent.from(UserEvent.of(UserEvent.EventType.USER_CREATED, user)))))
+                .block();
+        List<Long> ids = outboxRepository.findOldest(10).map(OutboxEvent::getId).collectList().block();
+        Instant until = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MICROS);
+
+        assertThat(outboxRepository.claim(ids, until).block()).isEqualTo(1);
+        assertThat(outboxRepository.findOldest(10).blockFirst().getClaimedUntil()).isEqualTo(until);
+
+        assertThat(outboxRepository.releaseClaim(ids).block()).isEqualTo(1);
+        assertThat(outboxRepository.findOldest(10).blockFirst().getClaimedUntil()).isNull();
+    }
+
+    @Test
+    void shouldReportReadyOnceSchemaIsCurrent() {
+        webTestClient.get()
+                .uri("/actuator/health/readiness")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.components.schemaVersion.status").isEqualTo("UP")
+                .jsonPath("$.components.schemaVersion.details.expected").isEqualTo("8");
+    }
+
     @Test
     void shouldReturn404ForNonExistentUser() {
         UUID nonExistentId = UUID.randomUUID();
@@ -0,0 +1,194 @@
+package org.binary.scripting.chusersservice.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.OutboxRepository;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load-tests {@code /v1/users} through the real WebFlux stack, Postgres and an embedded Kafka broker with the
+ * outbox relay running. Each workload is run closed-loop (a fixed number of callers) and open-loop (a fixed
+ * arrival rate); latency percentiles, error counts and the peak acquired/pending R2DBC connections are printed,
+ * and full HDR percentile distributions are written to {@code target/loadtest}.
+ * <p>
+ * Needs the same Postgres as {@link UserIntegrationTest}. Run with {@code -Dloadtest=true}; tune with
+ * {@code -Dloadtest.duration=PT30S}, {@code -Dloadtest.callers=64}, {@code -Dloadtest.rate=1000} and
+ * {@code -Dloadtest.pool-size=20}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 3, topics = "user-events", bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@TestPropertySource(properties = {
+        "spring.r2dbc.pool.enabled=true",
+        "spring.r2dbc.pool.max-size=${loadtest.pool-size:20}",
+        "app.outbox.relay.enabled=true",
+        "app.users.cache.invalidation.enabled=true",
+        "app.kafka.producer.prefetch-metadata=true",
+        "logging.level.org.binary.scripting.chusersservice=WARN"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class UserLoadTest {
+
+    private static final int SEEDED_USERS = 1_000;
+    private static final Path REPORT_DIRECTORY = Path.of("target", "loadtest");
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT15S"));
+    private static final int CALLERS = Integer.getInteger("loadtest.callers", 64);
+    private static final int RATE = Integer.getInteger("loadtest.rate", 1_000);
+
+    enum Workload {
+        READ_HEAVY(90, 5),
+        WRITE_HEAVY(10, 60),
+        MIXED(60, 20);
+
+        /**
+         * Percent of requests that are reads and creates; the rest are partial updates.
+         */
+        final int readPercent;
+        final int createPercent;
+
+        Workload(int readPercent, int createPercent) {
+            this.readPercent = readPercent;
+            this.createPercent = createPercent;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ConnectionProvider connections;
+    private WebClient webClient;
+    private List<UUID> userIds;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll().block();
+        outboxRepository.deleteAll().block();
+        connections = ConnectionProvider.builder("load-test")
+                .maxConnections(1_024)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + port + "/v1/users")
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        userIds = seedUsers();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connections.dispose();
+    }
+
+    @Test
+    void measureLatencyUnderLoad() throws IOException {
+        LoadGenerator generator = new LoadGenerator(meterRegistry);
+        // Warm up JIT, connection pools and the user cache; not reported
+        generator.closedLoop("warm-up", CALLERS, Duration.ofSeconds(5), nextRequest(Workload.MIXED));
+
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        for (Workload workload : Workload.values()) {
+            String name = workload.name().toLowerCase();
+            results.add(generator.closedLoop(name + "-closed-" + CALLERS, CALLERS, DURATION, nextRequest(workload)));
+            results.add(generator.openLoop(name + "-open-" + RATE + "rps", RATE, DURATION, nextRequest(workload)));
+        }
+
+        System.out.printf("%nLoad test: %s per run, %d callers closed-loop, %d req/s open-loop%n", DURATION, CALLERS, RATE);
+        System.out.println(LoadGenerator.Result.header());
+        for (LoadGenerator.Result result : results) {
+            System.out.println(result.row());
+            result.writeHistogram(REPORT_DIRECTORY);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.errorRate()).isLessThan(0.01));
+    }
+
+    private Supplier<Mono<?>> nextRequest(Workload workload) {
+        return () -> {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            if (roll < workload.readPercent) {
+                return webClient.get()
+                        .uri("/{id}", randomUserId())
+                        .retrieve()
+                        .toBodilessEntity();
+            }
+            if (roll < workload.readPercent + workload.createPercent) {
+                long n = sequence.incrementAndGet();
+                return webClient.post()
+                        .bodyValue(User.builder()
+                                .username("load" + n)
+                                .email("load" + n + "@example.com")
+                                .firstName("Load")
+                                .build())
+                        .retrieve()
+                        .toBodilessEntity();
+            }
+            return webClient.patch()
+                    .uri("/{id}", randomUserId())
+                    .bodyValue(Map.of("firstName", "Patched" + sequence.incrementAndGet()))
+                    .retrieve()
+                    .toBodilessEntity();
+        };
+    }
+
+    private UUID randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    private List<UUID> seedUsers() {
+        List<User> users = IntStream.range(0, SEEDED_USERS)
+                .mapToObj(i -> User.builder()
+                        .username("seed" + i)
+                        .email("seed" + i + "@example.com")
+                        .build())
+                .toList();
+        return webClient.post()
+                .uri("/batch")
+                .bodyValue(users)
+                .retrieve()
+                .bodyToFlux(UserBatchResult.class)
+                .map(result -> result.user().getId())
+                .collectList()
+                .block();
+    }
+}
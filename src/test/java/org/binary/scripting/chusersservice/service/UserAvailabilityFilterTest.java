@@ -0,0 +1,152 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserAvailabilityFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new UserAvailabilityFilter(userRepository, meterRegistry, 1_000, 0.01, false, 500);
+    }
+
+    @Test
+    void bloomFilter_shouldHaveNoFalseNegativesAndStayNearTargetRateAsItGrows() {
+        ScalableBloomFilter bloom = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 20_000).forEach(i -> bloom.put("member" + i));
+
+        assertThat(IntStream.range(0, 20_000).allMatch(i -> bloom.mightContain("member" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> bloom.mightContain("stranger" + i)).count();
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bloom.stageCount()).isGreaterThan(1);
+        // Keys that already test positive aren't added again, so a few false positives go uncounted
+        assertThat(bloom.count()).isBetween(19_500L, 20_000L);
+    }
+
+    @Test
+    void isTaken_beforeBuild_shouldAlwaysQuery() {
+        AtomicInteger queries = new AtomicInteger();
+
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "anyone", counting(queries, null)))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertThat(queries).hasValue(1);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "unfiltered").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void isTaken_afterBuild_shouldAnswerMissesWithoutQuerying() {
+        User existing = User.builder().id(UUID.randomUUID()).username("Alice").email("alice@example.com").build();
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.just(existing));
+        StepVerifier.create(filter.build())
+                .expectNext(1L)
+                .verifyComplete();
+        AtomicInteger queries = new AtomicInteger();
+
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "bob", counting(queries, null)))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "ALICE", counting(queries, existing)))
+                .expectNext(true)
+                .verifyComplete();
+        // An email is a different key even when the text matches a username
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.EMAIL, "alice", counting(queries, null)))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertThat(queries).hasValue(1);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "filtered").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "taken").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.availability.filter.size").gauge().value()).isPositive();
+    }
+
+    @Test
+    void isTaken_afterBuild_withConfirmedMisses_shouldQueryMissesAndLearnMissedValues() {
+        filter = new UserAvailabilityFilter(userRepository, meterRegistry, 1_000, 0.01, true, 500);
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.empty());
+        filter.build().block();
+        User elsewhere = User.builder().id(UUID.randomUUID()).username("carol").build();
+        AtomicInteger queries = new AtomicInteger();
+
+        // Created on another replica before the listener caught up: the filter misses it, Postgres doesn't
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "carol", counting(queries, elsewhere)))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "dave", counting(queries, null)))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertThat(queries).hasValue(2);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "missed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "confirmed-free").counter().count()).isEqualTo(1.0);
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "CAROL", counting(queries, elsewhere)))
+                .expectNext(true)
+                .verifyComplete();
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "taken").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void isTaken_withNonAsciiValue_shouldAlwaysQuery() {
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.empty());
+        filter.build().block();
+        AtomicInteger queries = new AtomicInteger();
+
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "STRAẞE", counting(queries, null)))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertThat(queries).hasValue(1);
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "unfiltered").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void isTaken_whenValueFreedAfterAdd_shouldCountFalsePositive() {
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.empty());
+        filter.build().block();
+        filter.add("renamed", null);
+
+        StepVerifier.create(filter.isTaken(UserAvailabilityFilter.Field.USERNAME, "renamed", counting(new AtomicInteger(), null)))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "false-positive").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.availability.filter.false-positive-rate").gauge().value()).isEqualTo(1.0);
+    }
+
+    private static Function<String, Mono<User>> counting(AtomicInteger queries, User result) {
+        return value -> {
+            queries.incrementAndGet();
+            return Mono.justOrEmpty(result);
+        };
+    }
+}
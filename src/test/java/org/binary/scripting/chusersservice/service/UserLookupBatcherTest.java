@@ -0,0 +1,153 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupBatcherTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(2);
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualTimeScheduler scheduler;
+    private UserLookupBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        batcher = new UserLookupBatcher(userRepository, meterRegistry, WINDOW, 4, scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void load_shouldFoldLookupsWithinWindowIntoOneQuery() {
+        User first = user();
+        User second = user();
+        UUID missing = UUID.randomUUID();
+        when(userRepository.findAllByIdIn(any(UUID[].class)))
+                .thenReturn(Flux.just(first, second));
+
+        AtomicReference<User> firstResult = new AtomicReference<>();
+        AtomicReference<User> secondResult = new AtomicReference<>();
+        AtomicReference<Boolean> missingCompleted = new AtomicReference<>(false);
+        batcher.load(first.getId()).subscribe(firstResult::set);
+        batcher.load(second.getId()).subscribe(secondResult::set);
+        batcher.load(missing).subscribe(null, null, () -> missingCompleted.set(true));
+
+        verify(userRepository, never()).findAllByIdIn(any(UUID[].class));
+        scheduler.advanceTimeBy(WINDOW);
+
+        ArgumentCaptor<UUID[]> ids = ArgumentCaptor.forClass(UUID[].class);
+        verify(userRepository, times(1)).findAllByIdIn(ids.capture());
+        assertThat(ids.getValue()).containsExactly(first.getId(), second.getId(), missing);
+        assertThat(firstResult.get()).isSameAs(first);
+        assertThat(secondResult.get()).isSameAs(second);
+        assertThat(missingCompleted.get()).isTrue();
+        assertThat(meterRegistry.get("user.lookup.batch.size").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void load_whenBatchIsFull_shouldQueryWithoutWaitingForWindow() {
+        when(userRepository.findAllByIdIn(any(UUID[].class)))
+                .thenReturn(Flux.empty());
+
+        for (int i = 0; i < 4; i++) {
+            batcher.load(UUID.randomUUID()).subscribe();
+        }
+
+        verify(userRepository, times(1)).findAllByIdIn(any(UUID[].class));
+    }
+
+    @Test
+    void load_shouldQueryEachIdOnceWhenRequestedTwice() {
+        User user = user();
+        when(userRepository.findAllByIdIn(any(UUID[].class)))
+                .thenReturn(Flux.just(user));
+
+        AtomicReference<User> firstResult = new AtomicReference<>();
+        AtomicReference<User> secondResult = new AtomicReference<>();
+        batcher.load(user.getId()).subscribe(firstResult::set);
+        batcher.load(user.getId()).subscribe(secondResult::set);
+        scheduler.advanceTimeBy(WINDOW);
+
+        ArgumentCaptor<UUID[]> ids = ArgumentCaptor.forClass(UUID[].class);
+        verify(userRepository).findAllByIdIn(ids.capture());
+        assertThat(ids.getValue()).containsExactly(user.getId());
+        assertThat(firstResult.get()).isSameAs(user);
+        assertThat(secondResult.get()).isSameAs(user);
+    }
+
+    @Test
+    void load_whenQueryFails_shouldFailEveryCaller() {
+        when(userRepository.findAllByIdIn(any(UUID[].class)))
+                .thenReturn(Flux.error(new IllegalStateException("db down")));
+
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        AtomicReference<Throwable> secondError = new AtomicReference<>();
+        batcher.load(UUID.randomUUID()).subscribe(null, firstError::set);
+        batcher.load(UUID.randomUUID()).subscribe(null, secondError::set);
+        scheduler.advanceTimeBy(WINDOW);
+
+        assertThat(firstError.get()).isInstanceOf(IllegalStateException.class);
+        assertThat(secondError.get()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void load_whenEveryCallerCancelled_shouldSkipQuery() {
+        Disposable lookup = batcher.load(UUID.randomUUID()).subscribe();
+        lookup.dispose();
+        scheduler.advanceTimeBy(WINDOW);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void load_whenBatchingDisabled_shouldLookUpDirectly() {
+        User user = user();
+        when(userRepository.findById(user.getId()))
+                .thenReturn(Mono.just(user));
+        UserLookupBatcher direct = new UserLookupBatcher(userRepository, meterRegistry, WINDOW, 1, scheduler);
+
+        StepVerifier.create(direct.load(user.getId()))
+                .expectNext(user)
+                .verifyComplete();
+        verify(userRepository, never()).findAllByIdIn(any(UUID[].class));
+    }
+
+    private static User user() {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("user")
+                .email("user@example.com")
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new UserSearchIndex(userRepository, meterRegistry, 500);
+    }
+
+    @Test
+    void search_shouldMatchPrefixOfAnyFieldIgnoringCase() {
+        UserSuggestion john = suggestion("jdoe", "john.doe@example.com", "John", "Doe");
+        UserSuggestion jane = suggestion("jsmith", "jane@example.com", "Jane", "Smith");
+        index.index(john);
+        index.index(jane);
+
+        assertThat(index.search("JOHN", 10)).containsExactly(john);
+        assertThat(index.search("smi", 10)).containsExactly(jane);
+        assertThat(index.search("john d", 10)).containsExactly(john);
+        assertThat(index.search("j", 10)).containsExactlyInAnyOrder(john, jane);
+        assertThat(index.search("x", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void search_shouldReturnEachUserOnceAndStopAtLimit() {
+        // username, email and first name of the same user all start with "ann"
+        UserSuggestion ann = suggestion("ann", "ann@example.com", "Ann", "Lee");
+        index.index(ann);
+        IntStream.range(0, 5).forEach(i -> index.index(suggestion("anna" + i, null, null, null)));
+
+        assertThat(index.search("ann", 10)).hasSize(6).containsOnlyOnce(ann);
+        assertThat(index.search("ann", 3)).hasSize(3);
+    }
+
+    @Test
+    void index_shouldReplaceTermsOfChangedUser() {
+        UserSuggestion before = suggestion("oldname", "old@example.com", null, null);
+        UserSuggestion after = new UserSuggestion(before.id(), "newname", "new@example.com", null, null);
+        index.index(before);
+        index.index(after);
+
+        assertThat(index.search("old", 10)).isEmpty();
+        assertThat(index.search("new", 10)).containsExactly(after);
+        assertThat(meterRegistry.get("user.search.index.size").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void remove_shouldDropUser() {
+        UserSuggestion user = suggestion("gone", "gone@example.com", "Gone", "Away");
+        index.index(user);
+
+        index.remove(user.id());
+
+        assertThat(index.search("g", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void build_shouldIndexEveryUser() {
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.range(0, 1_000).map(i -> User.builder()
+                        .id(UUID.randomUUID())
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .build()));
+
+        StepVerifier.create(index.build())
+                .expectNext(1_000L)
+                .verifyComplete();
+
+        assertThat(index.size()).isEqualTo(1_000);
+        assertThat(index.search("user99", 100)).hasSize(11);
+    }
+
+    @Test
+    void build_shouldNotOverwriteUsersWrittenWhileItRuns() {
+        Sinks.Many<User> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(userRepository.streamAll(500))
+                .thenReturn(rows.asFlux());
+        UUID renamedId = UUID.randomUUID();
+        UUID deletedId = UUID.randomUUID();
+
+        StepVerifier.create(index.build())
+                .then(() -> {
+                    index.index(new UserSuggestion(renamedId, "renamed", null, null, null));
+                    index.remove(deletedId);
+                    rows.tryEmitNext(User.builder().id(renamedId).username("stale").build());
+                    rows.tryEmitNext(User.builder().id(deletedId).username("deleted").build());
+                    rows.tryEmitComplete();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(index.search("stale", 10)).isEmpty();
+        assertThat(index.search("deleted", 10)).isEmpty();
+        assertThat(index.search("renamed", 10)).extracting(UserSuggestion::id).containsExactly(renamedId);
+    }
+
+    private static UserSuggestion suggestion(String username, String email, String firstName, String lastName) {
+        return new UserSuggestion(UUID.randomUUID(), username, email, firstName, lastName);
+    }
+}
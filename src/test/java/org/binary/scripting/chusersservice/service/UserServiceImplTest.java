@@ -1,24 +1,40 @@
 package org.binary.scripting.chusersservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.dto.UserBatchResult;
+import org.binary.scripting.chusersservice.dto.UserCursor;
+import org.binary.scripting.chusersservice.dto.UserField;
+import org.binary.scripting.chusersservice.dto.UserSuggestion;
 import org.binary.scripting.chusersservice.entity.User;
-import org.binary.scripting.chusersservice.event.UserEventPublisher;
+import org.binary.scripting.chusersservice.event.UserEventRecorder;
 import org.binary.scripting.chusersservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,9 +44,16 @@ class UserServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private UserEventPublisher userEventPublisher;
+    private UserEventRecorder userEventRecorder;
 
-    @InjectMocks
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserSearchIndex userSearchIndex;
+    private UserAvailabilityFilter userAvailabilityFilter;
+    private UserStatistics userStatistics;
+    private UserCache userCache;
     private UserServiceImpl userService;
 
     private User testUser;
@@ -38,6 +61,17 @@ class UserServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(meterRegistry, 100, Duration.ofMinutes(5));
+        UserLookupCoalescer userLookupCoalescer = new UserLookupCoalescer(meterRegistry);
+        // Batching is covered by UserLookupBatcherTest; a max size of 1 goes straight to findById
+        UserLookupBatcher userLookupBatcher = new UserLookupBatcher(userRepository, meterRegistry, Duration.ofMillis(2), 1);
+        userSearchIndex = new UserSearchIndex(userRepository, meterRegistry, 500);
+        userAvailabilityFilter = new UserAvailabilityFilter(userRepository, meterRegistry, 100, 0.01, false, 500);
+        userStatistics = new UserStatistics(userRepository, transactionManager, meterRegistry, 7, true, Duration.ZERO);
+        userService = new UserServiceImpl(userRepository, userEventRecorder, userCache, userLookupCoalescer, userLookupBatcher,
+                userSearchIndex, userAvailabilityFilter, userStatistics, new UserServiceMetrics(meterRegistry));
+
         testId = UUID.randomUUID();
         Instant now = Instant.now();
         testUser = User.builder()
@@ -68,7 +102,7 @@ class UserServiceImplTest {
                 })
                 .verifyComplete();
 
-        verify(userRepository).findAllBy(PageRequest.of(0, 10));
+        verify(userRepository).findAllBy(PageRequest.of(0, 10, Sort.by("createdAt", "id")));
     }
 
     @Test
@@ -80,7 +114,7 @@ class UserServiceImplTest {
                 .expectNextCount(1)
                 .verifyComplete();
 
-        verify(userRepository).findAllBy(PageRequest.of(0, 10));
+        verify(userRepository).findAllBy(PageRequest.of(0, 10, Sort.by("createdAt", "id")));
     }
 
     @Test
@@ -92,7 +126,79 @@ class UserServiceImplTest {
                 .expectNextCount(1)
                 .verifyComplete();
 
-        verify(userRepository).findAllBy(PageRequest.of(0, 10));
+        verify(userRepository).findAllBy(PageRequest.of(0, 10, Sort.by("createdAt", "id")));
+    }
+
+    @Test
+    void findAll_withOversizedSize_shouldClampToMaxPageSize() {
+        when(userRepository.findAllBy(any(PageRequest.class)))
+                .thenReturn(Flux.just(testUser));
+
+        StepVerifier.create(userService.findAll(2, Integer.MAX_VALUE))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(userRepository).findAllBy(PageRequest.of(2, 100, Sort.by("createdAt", "id")));
+    }
+
+    @Test
+    void findPage_withOversizedSize_shouldClampToMaxPageSize() {
+        ReflectionTestUtils.setField(userService, "pageMaxSize", 5);
+        when(userRepository.findFirstKeysetPage(6))
+                .thenReturn(Flux.just(testUser));
+
+        StepVerifier.create(userService.findPage(null, Integer.MAX_VALUE))
+                .assertNext(page -> assertThat(page.users()).containsExactly(testUser))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPage_withoutCursor_shouldReturnFirstPageAndNextCursor() {
+        User second = User.builder()
+                .id(UUID.randomUUID())
+                .username("second")
+                .createdAt(testUser.getCreatedAt().plusSeconds(1))
+                .build();
+        User third = User.builder()
+                .id(UUID.randomUUID())
+                .username("third")
+                .createdAt(testUser.getCreatedAt().plusSeconds(2))
+                .build();
+        when(userRepository.findFirstKeysetPage(3))
+                .thenReturn(Flux.just(testUser, second, third));
+
+        StepVerifier.create(userService.findPage(null, 2))
+                .assertNext(page -> {
+                    assertThat(page.users()).containsExactly(testUser, second);
+                    assertThat(page.next()).isEqualTo(UserCursor.of(second));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findPage_onLastPage_shouldReturnNoNextCursor() {
+        UserCursor cursor = UserCursor.of(testUser);
+        when(userRepository.findKeysetPageAfter(cursor.createdAt(), cursor.id(), 11))
+                .thenReturn(Flux.just(testUser));
+
+        StepVerifier.create(userService.findPage(cursor, 10))
+                .assertNext(page -> {
+                    assertThat(page.users()).containsExactly(testUser);
+                    assertThat(page.next()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamAll_shouldUseDefaultFetchSize() {
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.just(testUser));
+
+        StepVerifier.create(userService.streamAll())
+                .expectNext(testUser)
+                .verifyComplete();
+
+        verify(userRepository).streamAll(500);
     }
 
     @Test
@@ -118,11 +224,242 @@ class UserServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findById_withFields_shouldReadSelectedColumnsUnlessCached() {
+        Set<UserField> fields = UserField.parse("id,username");
+        User narrow = User.builder().id(testId).username("testuser").version(0L).build();
+        when(userRepository.findByIdSelecting(testId, fields))
+                .thenReturn(Mono.just(narrow));
+
+        StepVerifier.create(userService.findById(testId, fields))
+                .expectNext(narrow)
+                .verifyComplete();
+        verify(userRepository, never()).findById(any(UUID.class));
+
+        // A full read caches the user; narrow reads are then served from it
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+        userService.findById(testId).block();
+
+        StepVerifier.create(userService.findById(testId, fields))
+                .expectNext(testUser)
+                .verifyComplete();
+        verify(userRepository, times(1)).findByIdSelecting(testId, fields);
+    }
+
+    @Test
+    void findAll_withAllFields_shouldUseTheFullQuery() {
+        when(userRepository.findAllBy(any(PageRequest.class)))
+                .thenReturn(Flux.just(testUser));
+
+        StepVerifier.create(userService.findAll(1, 10, UserField.parse(null)))
+                .expectNext(testUser)
+                .verifyComplete();
+
+        verify(userRepository).findAllBy(PageRequest.of(1, 10, Sort.by("createdAt", "id")));
+        verify(userRepository, never()).findPageSelecting(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void findAllById_shouldServeCachedUsersAndQueryTheRestInChunks() {
+        ReflectionTestUtils.setField(userService, "lookupChunkSize", 2);
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        UUID fourth = UUID.randomUUID();
+        User secondUser = User.builder().id(second).username("second").build();
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+        when(userRepository.findAllByIdIn(new UUID[]{second, third}))
+                .thenReturn(Flux.just(secondUser));
+        when(userRepository.findAllByIdIn(new UUID[]{fourth}))
+                .thenReturn(Flux.empty());
+        userService.findById(testId).block();
+
+        StepVerifier.create(userService.findAllById(List.of(testId, second, third, second, fourth)))
+                .expectNext(testUser, secondUser)
+                .verifyComplete();
+
+        verify(userRepository, times(2)).findAllByIdIn(any(UUID[].class));
+    }
+
+    @Test
+    void findByUsername_shouldUseCaseInsensitiveLookup() {
+        when(userRepository.findByUsernameIgnoreCase("TestUser"))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.findByUsername("TestUser"))
+                .expectNext(testUser)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByEmail_whenMissing_shouldReturnEmpty() {
+        when(userRepository.findByEmailIgnoreCase("nobody@example.com"))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.findByEmail("nobody@example.com"))
+                .verifyComplete();
+    }
+
+    @Test
+    void checkAvailability_shouldAnswerFreeValuesFromTheFilter() {
+        when(userRepository.streamAll(500))
+                .thenReturn(Flux.just(testUser));
+        userAvailabilityFilter.build().block();
+        when(userRepository.findByUsernameIgnoreCase("TestUser"))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.checkAvailability("TestUser", "new@example.com"))
+                .assertNext(availability -> {
+                    assertThat(availability.usernameAvailable()).isFalse();
+                    assertThat(availability.emailAvailable()).isTrue();
+                    assertThat(availability.available()).isFalse();
+                })
+                .verifyComplete();
+
+        verify(userRepository, never()).findByEmailIgnoreCase("new@example.com");
+        assertThat(meterRegistry.get("user.availability.checks").tag("result", "filtered").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void findById_shouldRecordOperationTimer() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+        UUID missingId = UUID.randomUUID();
+        when(userRepository.findById(missingId))
+                .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+
+        userService.findById(testId).block();
+        StepVerifier.create(userService.findById(missingId))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(meterRegistry.get("user.service.operation").tags("operation", "findById", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("user.service.operation").tags("operation", "findById", "outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void findById_shouldServeRepeatedLookupsFromCache() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.findById(testId))
+                .expectNext(testUser)
+                .verifyComplete();
+        StepVerifier.create(userService.findById(testId))
+                .expectNext(testUser)
+                .verifyComplete();
+
+        verify(userRepository, times(1)).findById(testId);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void findById_shouldHandOutCopiesOfTheCachedUser() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+
+        User first = userService.findById(testId).block();
+        first.setUsername("mutated");
+
+        assertThat(userService.findById(testId).block().getUsername()).isEqualTo("testuser");
+        assertThat(userService.findAllById(List.of(testId)).blockFirst()).isNotSameAs(userService.findAllById(List.of(testId)).blockFirst());
+        verify(userRepository, times(1)).findById(testId);
+    }
+
+    @Test
+    void findById_whenJoiningALoadThatStartedBeforeAnEviction_shouldNotCacheIt() {
+        Sinks.One<User> staleRow = Sinks.one();
+        when(userRepository.findById(testId))
+                .thenReturn(staleRow.asMono(), Mono.just(testUser));
+
+        Mono<User> beforeCommit = userService.findById(testId);
+        StepVerifier.create(beforeCommit)
+                .then(() -> {
+                    // The write's after-commit eviction, then a caller that joins the load already in flight
+                    userCache.evict(testId);
+                    userService.findById(testId).subscribe();
+                })
+                .then(() -> staleRow.tryEmitValue(testUser.toBuilder().username("stale").build()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(userService.findById(testId))
+                .assertNext(user -> assertThat(user.getUsername()).isEqualTo("testuser"))
+                .verifyComplete();
+        assertThat(meterRegistry.get("user.lookup.coalescing").tag("result", "coalesced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void findById_shouldCoalesceConcurrentLookupsOfSameId() {
+        Sinks.One<User> row = Sinks.one();
+        when(userRepository.findById(testId))
+                .thenReturn(row.asMono());
+
+        Mono<User> first = userService.findById(testId);
+        Mono<User> second = userService.findById(testId);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> row.tryEmitValue(testUser))
+                .assertNext(users -> {
+                    assertThat(users.getT1()).isEqualTo(testUser);
+                    assertThat(users.getT2()).isEqualTo(testUser).isNotSameAs(users.getT1());
+                })
+                .verifyComplete();
+
+        verify(userRepository, times(1)).findById(testId);
+        assertThat(meterRegistry.get("user.lookup.coalescing").tag("result", "coalesced").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.lookup.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void findById_whenAllCallersCancel_shouldReleaseInFlightLookup() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.never());
+
+        StepVerifier.create(userService.findById(testId))
+                .thenCancel()
+                .verify();
+
+        assertThat(meterRegistry.get("user.lookup.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void findById_whenLookupFails_shouldNotKeepFailureInFlight() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.error(new IllegalStateException("db down")))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.findById(testId))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(userService.findById(testId))
+                .expectNext(testUser)
+                .verifyComplete();
+    }
+
+    @Test
+    void update_shouldEvictCachedUser() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+        when(userRepository.replaceById(testId, testUser))
+                .thenReturn(Mono.just(testUser));
+        when(userEventRecorder.userUpdated(testUser))
+                .thenReturn(Mono.just(testUser));
+
+        userService.findById(testId).block();
+        userService.update(testId, testUser).block();
+        userService.findById(testId).block();
+
+        verify(userRepository, times(2)).findById(testId);
+    }
+
     @Test
     void create_shouldSaveAndReturnUser() {
         when(userRepository.save(any(User.class)))
                 .thenReturn(Mono.just(testUser));
-        when(userEventPublisher.publishUserCreated(any(User.class)))
+        when(userEventRecorder.userCreated(any(User.class)))
                 .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         User newUser = User.builder()
@@ -140,7 +477,82 @@ class UserServiceImplTest {
                 .verifyComplete();
 
         verify(userRepository).save(newUser);
-        verify(userEventPublisher).publishUserCreated(any(User.class));
+        verify(userEventRecorder).userCreated(any(User.class));
+    }
+
+    @Test
+    void create_shouldMakeUserSearchable() {
+        when(userRepository.save(any(User.class)))
+                .thenReturn(Mono.just(testUser));
+        when(userEventRecorder.userCreated(any(User.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        userService.create(testUser).block();
+
+        StepVerifier.create(userService.search("TEST", 10))
+                .assertNext(suggestion -> {
+                    assertThat(suggestion.id()).isEqualTo(testId);
+                    assertThat(suggestion.username()).isEqualTo("testuser");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void delete_shouldRemoveUserFromSearch() {
+        userSearchIndex.index(UserSuggestion.of(testUser));
+        when(userRepository.removeById(testId))
+                .thenReturn(Mono.just(true));
+        when(userEventRecorder.userDeleted(testId))
+                .thenReturn(Mono.empty());
+
+        userService.delete(testId).block();
+
+        StepVerifier.create(userService.search("test", 10))
+                .verifyComplete();
+    }
+
+    @Test
+    void stats_shouldBeEmptyUntilSeededThenFollowCreatesAndDeletes() {
+        StepVerifier.create(userService.stats())
+                .verifyComplete();
+
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        when(userRepository.count()).thenReturn(Mono.just(5L));
+        when(userRepository.countSignupsPerDaySince(any(Instant.class))).thenReturn(Flux.empty());
+        userStatistics.reconcile().block();
+        when(userRepository.save(any(User.class)))
+                .thenReturn(Mono.just(testUser));
+        when(userEventRecorder.userCreated(any(User.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(userRepository.removeById(any(UUID.class)))
+                .thenReturn(Mono.just(true), Mono.just(false));
+        when(userEventRecorder.userDeleted(testId))
+                .thenReturn(Mono.empty());
+
+        userService.create(testUser).block();
+        userService.delete(testId).block();
+        userService.delete(UUID.randomUUID()).block();
+        userService.create(testUser).block();
+
+        StepVerifier.create(userService.stats())
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(6);
+                    assertThat(stats.signupsPerDay().getLast().signups()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void search_shouldCapLimit() {
+        ReflectionTestUtils.setField(userService, "searchMaxLimit", 2);
+        for (int i = 0; i < 5; i++) {
+            userSearchIndex.index(new UserSuggestion(UUID.randomUUID(), "user" + i, null, null, null));
+        }
+
+        StepVerifier.create(userService.search("user", 100))
+                .expectNextCount(2)
+                .verifyComplete();
     }
 
     @Test
@@ -153,11 +565,13 @@ class UserServiceImplTest {
                 .mobileNumber("+0987654321")
                 .build();
 
-        when(userRepository.findById(testId))
-                .thenReturn(Mono.just(testUser));
-        when(userRepository.save(any(User.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(userEventPublisher.publishUserUpdated(any(User.class)))
+        when(userRepository.replaceById(testId, updatedUser))
+                .thenAnswer(invocation -> {
+                    User user = invocation.getArgument(1);
+                    user.setId(testId);
+                    return Mono.just(user);
+                });
+        when(userEventRecorder.userUpdated(any(User.class)))
                 .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         StepVerifier.create(userService.update(testId, updatedUser))
@@ -168,31 +582,133 @@ class UserServiceImplTest {
                 })
                 .verifyComplete();
 
-        verify(userRepository).findById(testId);
-        verify(userRepository).save(any(User.class));
-        verify(userEventPublisher).publishUserUpdated(any(User.class));
+        verify(userRepository).replaceById(testId, updatedUser);
+        verify(userRepository, never()).findById(any(UUID.class));
+        verify(userEventRecorder).userUpdated(any(User.class));
     }
 
     @Test
     void update_whenNotFound_shouldReturnEmpty() {
-        when(userRepository.findById(testId))
+        when(userRepository.replaceById(testId, testUser))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(userService.update(testId, testUser))
                 .verifyComplete();
 
-        verify(userRepository).findById(testId);
-        verify(userRepository, never()).save(any());
+        verify(userRepository).replaceById(testId, testUser);
+        verifyNoInteractions(userEventRecorder);
+    }
+
+    @Test
+    void patch_shouldApplyChangesAndRecordEvent() {
+        User changes = User.builder().mobileNumber("+1999").build();
+        when(userRepository.patchById(testId, changes))
+                .thenReturn(Mono.just(testUser));
+        when(userEventRecorder.userUpdated(testUser))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.patch(testId, changes))
+                .expectNext(testUser)
+                .verifyComplete();
+
+        verify(userEventRecorder).userUpdated(testUser);
     }
 
     @Test
-    void delete_shouldDeleteUser() {
-        when(userRepository.deleteById(testId))
+    void patch_withoutChanges_shouldReadTheUserWithoutWriting() {
+        when(userRepository.findById(testId))
+                .thenReturn(Mono.just(testUser));
+
+        StepVerifier.create(userService.patch(testId, User.builder().build()))
+                .expectNext(testUser)
+                .verifyComplete();
+
+        verify(userRepository, never()).patchById(any(), any());
+        verifyNoInteractions(userEventRecorder);
+    }
+
+    @Test
+    void delete_shouldDeleteUserAndRecordEvent() {
+        when(userRepository.removeById(testId))
+                .thenReturn(Mono.just(true));
+        when(userEventRecorder.userDeleted(testId))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(userService.delete(testId))
                 .verifyComplete();
 
-        verify(userRepository).deleteById(testId);
+        verify(userRepository).removeById(testId);
+        verify(userEventRecorder).userDeleted(testId);
+    }
+
+    @Test
+    void delete_whenNotFound_shouldNotRecordEvent() {
+        when(userRepository.removeById(testId))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(userService.delete(testId))
+                .verifyComplete();
+
+        verify(userEventRecorder, never()).userDeleted(any());
+    }
+
+    @Test
+    void createAll_shouldInsertValidUsersAndReportInvalidOnes() {
+        when(userRepository.insertAll(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<User>>getArgument(0)));
+        when(userEventRecorder.usersCreated(anyList()))
+                .thenReturn(Mono.empty());
+
+        User valid = User.builder().username("batchuser").email("batch@example.com").build();
+        User invalid = User.builder().email("nousername@example.com").build();
+        User withId = User.builder().id(testId).username("clientid").build();
+        AtomicReference<User> created = new AtomicReference<>();
+
+        StepVerifier.create(userService.createAll(List.of(valid, invalid, withId)))
+                .assertNext(result -> {
+                    assertThat(result.index()).isZero();
+                    assertThat(result.status()).isEqualTo(UserBatchResult.Status.CREATED);
+                    assertThat(result.user().getId()).isNotNull();
+                    assertThat(result.user().getUsername()).isEqualTo("batchuser");
+                    created.set(result.user());
+                })
+                .assertNext(result -> {
+                    assertThat(result.index()).isEqualTo(1);
+                    assertThat(result.status()).isEqualTo(UserBatchResult.Status.INVALID);
+                })
+                .assertNext(result -> {
+                    assertThat(result.index()).isEqualTo(2);
+                    assertThat(result.status()).isEqualTo(UserBatchResult.Status.INVALID);
+                    assertThat(result.error()).isEqualTo("id is assigned by the server");
+                })
+                .verifyComplete();
+
+        // The request's objects are left untouched; the rows are copies
+        assertThat(valid.getId()).isNull();
+        assertThat(withId.getId()).isEqualTo(testId);
+        verify(userRepository).insertAll(List.of(created.get()));
+        verify(userEventRecorder).usersCreated(List.of(created.get()));
+    }
+
+    @Test
+    void updateAll_shouldReportMissingAndDuplicateIds() {
+        UUID missingId = UUID.randomUUID();
+        User existing = User.builder().id(testId).username("renamed").build();
+        User missing = User.builder().id(missingId).username("ghost").build();
+        User duplicate = User.builder().id(testId).username("again").build();
+
+        when(userRepository.updateAll(anyList()))
+                .thenReturn(Flux.just(existing));
+        when(userEventRecorder.usersUpdated(anyList()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.updateAll(List.of(existing, missing, duplicate)))
+                .assertNext(result -> assertThat(result.status()).isEqualTo(UserBatchResult.Status.UPDATED))
+                .assertNext(result -> assertThat(result.status()).isEqualTo(UserBatchResult.Status.NOT_FOUND))
+                .assertNext(result -> assertThat(result.status()).isEqualTo(UserBatchResult.Status.INVALID))
+                .verifyComplete();
+
+        verify(userRepository).updateAll(List.of(existing, missing));
+        verify(userEventRecorder).usersUpdated(List.of(existing));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package org.binary.scripting.chusersservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.binary.scripting.chusersservice.dto.DailySignups;
+import org.binary.scripting.chusersservice.dto.UserStats;
+import org.binary.scripting.chusersservice.entity.User;
+import org.binary.scripting.chusersservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatisticsTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserStatistics statistics;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        statistics = new UserStatistics(userRepository, transactionManager, meterRegistry, 3, true, Duration.ZERO);
+        today = LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Test
+    void reconcile_shouldZeroFillTheWindowOldestDayFirst() {
+        when(userRepository.count()).thenReturn(Mono.just(42L));
+        when(userRepository.countSignupsPerDaySince(today.minusDays(2).atStartOfDay(ZoneOffset.UTC).toInstant()))
+                .thenReturn(Flux.just(new DailySignups(today, 4)));
+
+        StepVerifier.create(statistics.reconcile())
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(42);
+                    assertThat(stats.totalEstimated()).isFalse();
+                    assertThat(stats.signupsPerDay()).containsExactly(
+                            new DailySignups(today.minusDays(2), 0),
+                            new DailySignups(today.minusDays(1), 0),
+                            new DailySignups(today, 4));
+                    assertThat(stats.reconciledAt()).isNotNull();
+                })
+                .verifyComplete();
+        assertThat(meterRegistry.get("user.count").gauge().value()).isEqualTo(42.0);
+    }
+
+    @Test
+    void current_shouldBeNullUntilSeeded() {
+        statistics.created(user(Instant.now()));
+
+        assertThat(statistics.current()).isNull();
+    }
+
+    @Test
+    void localWrites_shouldBeAddedToTheSeed() {
+        seed(10);
+
+        statistics.created(user(Instant.now()));
+        statistics.created(user(today.minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+        statistics.created(user(today.minusDays(30).atStartOfDay(ZoneOffset.UTC).toInstant()));
+        statistics.deletedOnCommit().block();
+
+        UserStats stats = statistics.current();
+        assertThat(stats.total()).isEqualTo(12);
+        assertThat(stats.signupsPerDay()).extracting(DailySignups::signups).containsExactly(0L, 1L, 1L);
+    }
+
+    @Test
+    void reconcile_shouldNotCountWritesTwice() {
+        Sinks.One<Long> count = Sinks.one();
+        when(userRepository.count()).thenReturn(count.asMono());
+        when(userRepository.countSignupsPerDaySince(any(Instant.class)))
+                .thenReturn(Flux.just(new DailySignups(today, 1)));
+        statistics.created(user(Instant.now()));
+
+        // The first write happened before the queries and is in their result; the second isn't
+        Mono<UserStats> reconcile = statistics.reconcile();
+        StepVerifier.create(reconcile)
+                .then(() -> statistics.created(user(Instant.now())))
+                .then(() -> count.tryEmitValue(1L))
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(2);
+                    assertThat(stats.signupsPerDay().getLast().signups()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void reconcile_shouldSubtractWritesMadeUntilTheSnapshotIsTaken() {
+        Sinks.One<ReactiveTransaction> begun = Sinks.one();
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(begun.asMono());
+        when(userRepository.count()).thenReturn(Mono.just(2L));
+        when(userRepository.countSignupsPerDaySince(any(Instant.class)))
+                .thenReturn(Flux.just(new DailySignups(today, 2)));
+        statistics.created(user(Instant.now()));
+
+        // The second write commits while BEGIN is in flight, before the first query takes the snapshot
+        StepVerifier.create(statistics.reconcile())
+                .then(() -> statistics.created(user(Instant.now())))
+                .then(() -> begun.tryEmitValue(mock(ReactiveTransaction.class)))
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(2);
+                    assertThat(stats.signupsPerDay().getLast().signups()).isEqualTo(2);
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getReactiveTransaction(definition.capture());
+        assertThat(definition.getValue().getIsolationLevel()).isEqualTo(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    @Test
+    void reconcile_whileRunning_shouldBeSkipped() {
+        when(userRepository.count()).thenReturn(Mono.never());
+        statistics.reconcile().subscribe();
+
+        StepVerifier.create(statistics.reconcile())
+                .verifyComplete();
+    }
+
+    @Test
+    void reconcile_withEstimate_shouldUseReltuplesAndSkipCount() {
+        statistics = new UserStatistics(userRepository, transactionManager, meterRegistry, 3, false, Duration.ZERO);
+        when(userRepository.estimateCount()).thenReturn(Mono.just(1_000_000L));
+        when(userRepository.countSignupsPerDaySince(any(Instant.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(statistics.reconcile())
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(1_000_000);
+                    assertThat(stats.totalEstimated()).isTrue();
+                })
+                .verifyComplete();
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void reconcile_withEstimate_whenNeverAnalyzed_shouldCount() {
+        statistics = new UserStatistics(userRepository, transactionManager, meterRegistry, 3, false, Duration.ZERO);
+        when(userRepository.estimateCount()).thenReturn(Mono.just(-1L));
+        when(userRepository.count()).thenReturn(Mono.just(7L));
+        when(userRepository.countSignupsPerDaySince(any(Instant.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(statistics.reconcile())
+                .assertNext(stats -> {
+                    assertThat(stats.total()).isEqualTo(7);
+                    assertThat(stats.totalEstimated()).isFalse();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void current_shouldServeTheSameSnapshotWithinTheTtl() {
+        statistics = new UserStatistics(userRepository, transactionManager, meterRegistry, 3, true, Duration.ofMinutes(1));
+        seed(10);
+        UserStats first = statistics.current();
+
+        statistics.created(user(Instant.now()));
+
+        assertThat(statistics.current()).isSameAs(first);
+        assertThat(first.total()).isEqualTo(10);
+    }
+
+    private void seed(long total) {
+        when(userRepository.count()).thenReturn(Mono.just(total));
+        when(userRepository.countSignupsPerDaySince(any(Instant.class))).thenReturn(Flux.empty());
+        statistics.reconcile().block();
+    }
+
+    private static User user(Instant createdAt) {
+        return User.builder().username("user").createdAt(createdAt).build();
+    }
+}